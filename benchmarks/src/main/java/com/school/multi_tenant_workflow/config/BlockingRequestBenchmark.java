@@ -0,0 +1,114 @@
+package com.school.multi_tenant_workflow.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Request throughput (requests/s) when every request blocks on JDBC, on a servlet-sized pool
+ * of platform threads vs. one virtual thread per request. Each request hops onto the executor
+ * through TenantContext.propagating and runs a query in its own tenant's H2 database that
+ * sleeps for one round trip, so the thread is parked inside the driver as on a network call.
+ * Platform threads top out at PLATFORM_THREADS / round trip; virtual threads are not pool-bound.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BlockingRequestBenchmark {
+
+    private static final int REQUESTS = 1_000;
+    private static final int PLATFORM_THREADS = 50;   // A typical servlet worker pool
+    private static final String[] TENANTS = {"school_a", "school_b", "school_c", "school_d"};
+
+    @Param({"platform", "virtual"})
+    String threads;
+
+    @Param({"10"})
+    long jdbcRoundTripMillis;
+
+    private TenantRoutingDataSource routing;
+    private ExecutorService executor;
+    private final AtomicInteger wrongTenant = new AtomicInteger();
+
+    @Setup
+    public void setUp() throws SQLException {
+        routing = new TenantRoutingDataSource();
+        routing.setDefaultTargetDataSource(new DriverManagerDataSource());
+        for (String tenant : TENANTS) {
+            String url = "jdbc:h2:mem:blocking_" + tenant + ";DB_CLOSE_DELAY=-1";
+            try (Connection connection = DriverManager.getConnection(url, "sa", "");
+                 Statement statement = connection.createStatement()) {
+                statement.execute("CREATE ALIAS IF NOT EXISTS SLEEP FOR 'java.lang.Thread.sleep(long)'");
+                statement.execute("CREATE TABLE IF NOT EXISTS tenant (name VARCHAR(64))");
+                statement.execute("DELETE FROM tenant");
+                statement.execute("INSERT INTO tenant VALUES ('" + tenant + "')");
+            }
+            routing.putTenantDataSource(tenant, new DriverManagerDataSource(url, "sa", ""));
+        }
+        executor = "virtual".equals(threads)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_THREADS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+        if (wrongTenant.get() > 0) {
+            throw new IllegalStateException(wrongTenant.get() + " requests reached another tenant's database");
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public void blockingRequests() {
+        CompletableFuture<?>[] requests = new CompletableFuture<?>[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            String tenant = TENANTS[i % TENANTS.length];
+            requests[i] = TenantContext.callWithTenant(tenant, () ->
+                    CompletableFuture.runAsync(() -> request(tenant), TenantContext.propagating(executor)));
+        }
+        CompletableFuture.allOf(requests).join();
+    }
+
+    private void request(String tenant) {
+        try (Connection connection = routing.getConnection();
+             PreparedStatement sleep = connection.prepareStatement("CALL SLEEP(?)");
+             PreparedStatement name = connection.prepareStatement("SELECT name FROM tenant")) {
+            sleep.setLong(1, jdbcRoundTripMillis);
+            sleep.execute();
+            try (ResultSet rs = name.executeQuery()) {
+                if (!rs.next() || !tenant.equals(rs.getString(1))) {
+                    wrongTenant.incrementAndGet();
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.school.multi_tenant_workflow.config;
+
+import com.school.multi_tenant_workflow.model.TenantConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * addTenant/removeTenant with 10, 1k and 10k tenants already registered and routed.
+ * The churned tenant opens a real Hikari pool on an in-memory H2 database, so the
+ * add/remove cycle includes pool start-up; re-adding an unchanged tenant is the no-op path
+ * that /select-tenant takes on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TenantChurnBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    int tenants;
+
+    private TenantDataSourceManager manager;
+    private TenantConfig churned;
+    private TenantConfig resident;
+
+    @Setup
+    public void setUp() {
+        TenantRoutingDataSource routing = new TenantRoutingDataSource();
+        routing.setDefaultTargetDataSource(new DriverManagerDataSource());
+        TenantMetrics metrics = new TenantMetrics(new SimpleMeterRegistry(), routing, 1.0);
+        manager = new TenantDataSourceManager(routing, null, metrics, 1_000_000, Long.MAX_VALUE, 1_000, 30, 5);
+
+        for (int i = 0; i < tenants; i++) {
+            TenantConfig config = h2Tenant("school_" + i);
+            manager.registerTenant(config);
+            routing.putTenantDataSource(config.getName(), new DriverManagerDataSource());
+        }
+        churned = h2Tenant("churned");
+        resident = h2Tenant("resident");
+        manager.addTenant(resident);
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.removeTenant(resident.getName());
+    }
+
+    @Benchmark
+    public void addAndRemoveTenant() {
+        manager.addTenant(churned);
+        manager.removeTenant(churned.getName());
+    }
+
+    @Benchmark
+    public void reAddUnchangedTenant() {
+        manager.addTenant(resident);
+    }
+
+    private static TenantConfig h2Tenant(String name) {
+        TenantConfig config = new TenantConfig();
+        config.setName(name);
+        config.setUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setDriverClass("org.h2.Driver");
+        return config;
+    }
+}
@@ -0,0 +1,79 @@
+package com.school.multi_tenant_workflow.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of binding a tenant on platform vs. virtual threads. Each invocation hands one task
+ * to the executor and does OPS bindings inside it, so the hand-off (and, for virtual
+ * threads, the thread start) is amortised and the per-binding cost dominates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TenantContextBenchmark {
+
+    private static final int OPS = 1_000;
+    private static final String[] TENANTS = {"school_a", "school_b", "school_c", "school_d"};
+
+    @Param({"platform", "virtual"})
+    String threads;
+
+    private ExecutorService executor;
+
+    @Setup
+    public void setUp() {
+        executor = "virtual".equals(threads)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newSingleThreadExecutor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public int setAndClear() throws Exception {
+        return executor.submit(() -> {
+            int seen = 0;
+            for (int i = 0; i < OPS; i++) {
+                TenantContext.setCurrentTenant(TENANTS[i & 3]);
+                seen += TenantContext.getCurrentTenant().length();
+                TenantContext.clear();
+            }
+            return seen;
+        }).get();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public int scopedBinding() throws Exception {
+        return executor.submit(() -> {
+            int seen = 0;
+            for (int i = 0; i < OPS; i++) {
+                seen += TenantContext.callWithTenant(TENANTS[i & 3], TenantContext::getCurrentTenant).length();
+            }
+            return seen;
+        }).get();
+    }
+}
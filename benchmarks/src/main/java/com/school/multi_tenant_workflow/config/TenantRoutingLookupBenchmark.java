@@ -0,0 +1,68 @@
+package com.school.multi_tenant_workflow.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routing table lookups from 8 threads at once: spread over all tenants, and all
+ * threads on one hot tenant (where the last-access stamp is the shared write).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TenantRoutingLookupBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    int tenants;
+
+    private TenantRoutingDataSource routing;
+    private String[] names;
+
+    @Setup
+    public void setUp() {
+        routing = new TenantRoutingDataSource();
+        routing.setDefaultTargetDataSource(new DriverManagerDataSource());
+        names = new String[tenants];
+        for (int i = 0; i < tenants; i++) {
+            names[i] = "school_" + i;
+            // Unconnected stand-ins: only the table lookup is measured
+            routing.putTenantDataSource(names[i], new DriverManagerDataSource());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Caller {
+        int next = ThreadLocalRandom.current().nextInt(1 << 16);
+    }
+
+    @Benchmark
+    public DataSource lookupSpread(Caller caller) {
+        TenantContext.setCurrentTenant(names[caller.next++ % tenants]);
+        return routing.determineTargetDataSource();
+    }
+
+    @Benchmark
+    public DataSource lookupHotTenant() {
+        TenantContext.setCurrentTenant(names[0]);
+        return routing.determineTargetDataSource();
+    }
+}
@@ -0,0 +1,105 @@
+package com.school.multi_tenant_workflow.controller;
+
+import com.school.multi_tenant_workflow.model.AttendanceRecord;
+import com.school.multi_tenant_workflow.repository.AttendanceBatchWriter;
+import com.school.multi_tenant_workflow.repository.AttendanceRollupRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The /submit-attendance path against an embedded H2 database in MySQL mode with the
+ * tenant changelog applied: parsing the form, and parsing plus the transactional
+ * multi-row upsert and rollup refresh. Every invocation resubmits the same day's form,
+ * which is the correction path teachers hit most.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SubmitAttendanceBenchmark {
+
+    private static final String[] STATUSES = {"Present", "Absent", "OD"};
+
+    @Param({"100", "1000"})
+    int students;
+
+    private HikariDataSource dataSource;
+    private AttendanceBatchWriter writer;
+    private TransactionTemplate transaction;
+    private Map<String, String> form;
+    private final LocalDate day = LocalDate.of(2026, 1, 5);
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:attendance_bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        migrate();
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        writer = new AttendanceBatchWriter(jdbcTemplate, new AttendanceRollupRepository(jdbcTemplate), 1000);
+        transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        form = new LinkedHashMap<>();
+        form.put("sort", "id");
+        for (int i = 1; i <= students; i++) {
+            jdbcTemplate.update("INSERT INTO students (id, name, email) VALUES (?, ?, ?)",
+                    (long) i, "Student " + i, "student" + i + "@school.test");
+            form.put("status_" + i, STATUSES[i % STATUSES.length]);
+        }
+        form.put("nextAfter", "");
+    }
+
+    @TearDown
+    public void tearDown() {
+        new JdbcTemplate(dataSource).execute("DROP ALL OBJECTS");
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<AttendanceRecord> parseForm() {
+        return TenantController.parseAttendanceForm(form, day);
+    }
+
+    @Benchmark
+    public Integer parseAndUpsert() {
+        return transaction.execute(status -> writer.upsertAll(TenantController.parseAttendanceForm(form, day)));
+    }
+
+    private void migrate() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            Database database = DatabaseFactory.getInstance()
+                    .findCorrectDatabaseImplementation(new JdbcConnection(connection));
+            new Liquibase("db/changelog/master.xml", new ClassLoaderResourceAccessor(), database).update("");
+        }
+    }
+}
@@ -2,8 +2,12 @@ package com.school.multi_tenant_workflow;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@EnableAsync
 public class MultiTenantWorkflowApplication {
 
 	public static void main(String[] args) {
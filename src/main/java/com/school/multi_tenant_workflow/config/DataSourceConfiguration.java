@@ -2,26 +2,30 @@ package com.school.multi_tenant_workflow.config;
 
 import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 
 import javax.sql.DataSource;
-import java.util.HashMap;
-import java.util.Map;
 
 @Configuration
 public class DataSourceConfiguration {
 
     @Bean(name = "masterDataSource")
-    public DataSource masterDataSource() {
+    public DataSource masterDataSource(
+            @Value("${spring.datasource.url:jdbc:mysql://localhost:3306/master_control_db?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC}") String url,
+            @Value("${spring.datasource.username:root}") String username,
+            @Value("${spring.datasource.password:mysql}") String password,
+            @Value("${spring.datasource.driver-class-name:com.mysql.cj.jdbc.Driver}") String driverClassName) {
         HikariDataSource ds = new HikariDataSource();
-        ds.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        ds.setDriverClassName(driverClassName);
 
-        // Connects to your Master MySQL Registry
-        ds.setJdbcUrl("jdbc:mysql://localhost:3306/master_control_db?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC");
-        ds.setUsername("root");
-        ds.setPassword("mysql"); // Restored your original password
+        // Connects to your Master MySQL Registry (overridable, e.g. by the embedded load harness)
+        ds.setJdbcUrl(url);
+        ds.setUsername(username);
+        ds.setPassword(password);
 
         // Basic pool settings for the Registry
         ds.setMaximumPoolSize(10);
@@ -31,18 +35,29 @@ public class DataSourceConfiguration {
     }
 
     @Bean
-    @Primary
-    public DataSource dataSource(@Qualifier("masterDataSource") DataSource masterDataSource) {
+    public TenantRoutingDataSource tenantRoutingDataSource(
+            @Qualifier("masterDataSource") DataSource masterDataSource,
+            @Value("${tenant.replica.read-your-writes-ms:0}") long readYourWritesMillis,
+            @Value("${tenant.replica.retry-after-ms:30000}") long replicaRetryMillis) {
         // This is your "Traffic Cop" that switches between school databases
+        // Tenant pools are added to its routing table one at a time by TenantDataSourceManager
         TenantRoutingDataSource routingDataSource = new TenantRoutingDataSource();
 
-        Map<Object, Object> targetDataSources = new HashMap<>();
-        routingDataSource.setTargetDataSources(targetDataSources);
-
         // CRITICAL: Fallback to Master DB so Hibernate doesn't crash at startup
         routingDataSource.setDefaultTargetDataSource(masterDataSource);
-
-        routingDataSource.afterPropertiesSet();
+        routingDataSource.setReadYourWritesMillis(readYourWritesMillis);
+        routingDataSource.setReplicaRetryMillis(replicaRetryMillis);
         return routingDataSource;
     }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(TenantRoutingDataSource tenantRoutingDataSource) {
+        // The physical connection is only fetched at the first statement, after the transaction
+        // manager has marked it read-only, so @Transactional(readOnly = true) work can be sent
+        // to the tenant's read replicas
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(tenantRoutingDataSource);
+        proxy.setReadOnlyDataSource(tenantRoutingDataSource.getReadOnlyDataSource());
+        return proxy;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.school.multi_tenant_workflow.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Binds the HTTP session's write stamp to the request thread, so a user's reads go to the
+ * primary only after that user wrote. Requests without a session bind nothing: their writes
+ * hold nobody's reads on the primary and their reads always use replicas.
+ */
+@Component
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String SESSION_WRITE_STAMP = "READ_YOUR_WRITES_STAMP";
+
+    private final boolean enabled;
+
+    public ReadYourWritesFilter(@Value("${tenant.replica.read-your-writes-ms:0}") long readYourWritesMillis) {
+        this.enabled = readYourWritesMillis > 0;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        HttpSession session = request.getSession(false);
+        if (!enabled || session == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        AtomicLong previous = TenantContext.bindWriteStamp(stampOf(session));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            TenantContext.bindWriteStamp(previous);
+        }
+    }
+
+    private static AtomicLong stampOf(HttpSession session) {
+        synchronized (WebUtils.getSessionMutex(session)) {
+            AtomicLong stamp = (AtomicLong) session.getAttribute(SESSION_WRITE_STAMP);
+            if (stamp == null) {
+                stamp = new AtomicLong();
+                session.setAttribute(SESSION_WRITE_STAMP, stamp);
+            }
+            return stamp;
+        }
+    }
+}
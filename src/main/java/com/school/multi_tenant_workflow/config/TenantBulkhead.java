@@ -0,0 +1,229 @@
+package com.school.multi_tenant_workflow.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Per-tenant admission control so one school cannot take every request thread.
+ * <ul>
+ *   <li>Each tenant runs at most {@code per-tenant-limit} requests at once on this node.</li>
+ *   <li>While the node has spare capacity any tenant may use it. Once it is full, a tenant
+ *       already at or above its weighted fair share ({@code capacity * weight / active weight})
+ *       is turned away at once instead of queueing.</li>
+ *   <li>Other requests wait in a short per-tenant queue until their deadline. A freed slot goes
+ *       to the queued tenant with the fewest in-flight requests per unit of weight.</li>
+ * </ul>
+ * Rejections are counted by reason and queue waits are timed, both per tenant.
+ */
+@Component
+public class TenantBulkhead {
+
+    public enum Admission {
+        ADMITTED,
+        QUEUE_FULL,      // The tenant's queue is full
+        OVER_SHARE,      // Node is full and the tenant already has its fair share
+        QUEUE_TIMEOUT    // Waited in the queue past the deadline
+    }
+
+    private final int capacity;
+    private final int perTenantLimit;
+    private final int maxQueuePerTenant;
+    private final long queueTimeoutNanos;
+    private final Map<String, Integer> weights;
+    private final MeterRegistry registry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Only tenants with running or queued requests have an entry
+    private final Map<String, TenantState> states = new HashMap<>();
+    private int inFlight;
+    private int activeWeight;
+
+    public TenantBulkhead(MeterRegistry registry,
+                          @Value("${tenant.bulkhead.capacity:150}") int capacity,
+                          @Value("${tenant.bulkhead.per-tenant-limit:20}") int perTenantLimit,
+                          @Value("${tenant.bulkhead.max-queue-per-tenant:10}") int maxQueuePerTenant,
+                          @Value("${tenant.bulkhead.queue-timeout-ms:2000}") long queueTimeoutMillis,
+                          @Value("${tenant.bulkhead.weights:}") String weights) {
+        this.registry = registry;
+        this.capacity = Math.max(1, capacity);
+        this.perTenantLimit = Math.max(1, perTenantLimit);
+        this.maxQueuePerTenant = Math.max(0, maxQueuePerTenant);
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+        // "school_a:3,school_b:2"; tenants not listed weigh 1
+        this.weights = Arrays.stream(weights.split(","))
+                .map(String::trim)
+                .filter(entry -> entry.contains(":"))
+                .collect(Collectors.toUnmodifiableMap(
+                        entry -> entry.substring(0, entry.indexOf(':')).trim(),
+                        entry -> Math.max(1, Integer.parseInt(entry.substring(entry.indexOf(':') + 1).trim()))));
+        Gauge.builder("tenant.bulkhead.in-flight", this, TenantBulkhead::getInFlight).register(registry);
+    }
+
+    /**
+     * Admits a request for the tenant, waiting in its queue if needed.
+     * Every ADMITTED result must be paired with one {@link #release(String)}.
+     */
+    public Admission acquire(String tenant) throws InterruptedException {
+        long started = System.nanoTime();
+        TenantState state;
+        Waiter waiter;
+        lock.lock();
+        try {
+            state = states.computeIfAbsent(tenant, this::newState);
+            if (state.queue.isEmpty() && hasRoom(state)) {
+                admit(state);
+                return Admission.ADMITTED;
+            }
+            if (state.queue.size() >= maxQueuePerTenant) {
+                return reject(state, Admission.QUEUE_FULL);
+            }
+            if (inFlight >= capacity && state.inFlight >= fairShare(state)) {
+                return reject(state, Admission.OVER_SHARE);
+            }
+
+            waiter = new Waiter(lock.newCondition());
+            state.queue.addLast(waiter);
+            long remaining = queueTimeoutNanos;
+            try {
+                while (!waiter.granted) {
+                    if (remaining <= 0) {
+                        state.queue.remove(waiter);
+                        return reject(state, Admission.QUEUE_TIMEOUT);
+                    }
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                if (waiter.granted) {
+                    releaseLocked(state);
+                } else {
+                    state.queue.remove(waiter);
+                    removeIfIdle(state);
+                }
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+        queueWait(tenant).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return Admission.ADMITTED;
+    }
+
+    public void release(String tenant) {
+        lock.lock();
+        try {
+            TenantState state = states.get(tenant);
+            if (state != null && state.inFlight > 0) {
+                releaseLocked(state);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    private boolean hasRoom(TenantState state) {
+        return inFlight < capacity && state.inFlight < perTenantLimit;
+    }
+
+    private int fairShare(TenantState state) {
+        return Math.max(1, (int) ((long) capacity * state.weight / Math.max(1, activeWeight)));
+    }
+
+    private void admit(TenantState state) {
+        state.inFlight++;
+        inFlight++;
+    }
+
+    private void releaseLocked(TenantState state) {
+        state.inFlight--;
+        inFlight--;
+        dispatch();
+        removeIfIdle(state);
+    }
+
+    // Hands freed slots to the queued tenant that is furthest below its weighted share
+    private void dispatch() {
+        while (inFlight < capacity) {
+            TenantState next = null;
+            for (TenantState candidate : states.values()) {
+                if (!candidate.queue.isEmpty() && candidate.inFlight < perTenantLimit
+                        && (next == null || (double) candidate.inFlight / candidate.weight < (double) next.inFlight / next.weight)) {
+                    next = candidate;
+                }
+            }
+            if (next == null) {
+                return;
+            }
+            Waiter waiter = next.queue.pollFirst();
+            admit(next);
+            waiter.granted = true;
+            waiter.condition.signal();
+        }
+    }
+
+    private Admission reject(TenantState state, Admission reason) {
+        removeIfIdle(state);
+        Counter.builder("tenant.bulkhead.rejections")
+                .tags("tenant", state.tenant, "reason", reason.name().toLowerCase())
+                .register(registry)
+                .increment();
+        return reason;
+    }
+
+    private TenantState newState(String tenant) {
+        TenantState state = new TenantState(tenant, weights.getOrDefault(tenant, 1));
+        activeWeight += state.weight;
+        return state;
+    }
+
+    private void removeIfIdle(TenantState state) {
+        if (state.inFlight == 0 && state.queue.isEmpty() && states.remove(state.tenant, state)) {
+            activeWeight -= state.weight;
+        }
+    }
+
+    private Timer queueWait(String tenant) {
+        return Timer.builder("tenant.bulkhead.queue.wait")
+                .description("Time admitted requests spent queued behind the tenant's limit")
+                .tag("tenant", tenant)
+                .register(registry);
+    }
+
+    private static final class TenantState {
+        private final String tenant;
+        private final int weight;
+        private final Deque<Waiter> queue = new ArrayDeque<>();
+        private int inFlight;
+
+        private TenantState(String tenant, int weight) {
+            this.tenant = tenant;
+            this.weight = weight;
+        }
+    }
+
+    private static final class Waiter {
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+}
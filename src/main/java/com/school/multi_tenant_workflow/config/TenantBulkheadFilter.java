@@ -0,0 +1,65 @@
+package com.school.multi_tenant_workflow.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Runs every tenant-bound request through {@link TenantBulkhead}. A tenant over its share
+ * gets 429 straight away; a request that waited in the queue past its deadline gets 503.
+ * Requests not tied to a tenant (landing page, provisioning, actuator) are not limited.
+ */
+@Component
+public class TenantBulkheadFilter extends OncePerRequestFilter {
+
+    private final TenantBulkhead bulkhead;
+    private final TenantRegistry tenantRegistry;
+
+    public TenantBulkheadFilter(TenantBulkhead bulkhead, TenantRegistry tenantRegistry) {
+        this.bulkhead = bulkhead;
+        this.tenantRegistry = tenantRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String tenant = TenantRequests.tenantOf(request, tenantRegistry);
+        if (tenant == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        TenantBulkhead.Admission admission;
+        try {
+            admission = bulkhead.acquire(tenant);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+
+        switch (admission) {
+            case ADMITTED -> {
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    bulkhead.release(tenant);
+                }
+            }
+            case QUEUE_TIMEOUT -> reject(response, HttpStatus.SERVICE_UNAVAILABLE, tenant);
+            default -> reject(response, HttpStatus.TOO_MANY_REQUESTS, tenant);
+        }
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String tenant) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.sendError(status.value(), "Too many concurrent requests for " + tenant + ", retry shortly");
+    }
+}
@@ -0,0 +1,103 @@
+package com.school.multi_tenant_workflow.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for slow-changing tenant reference data (student lists today).
+ * A Hibernate L2 cache would key entities by id alone and mix schools up behind the
+ * routing DataSource, so every key here carries the tenant from {@link TenantContext}.
+ * One bounded Caffeine cache (W-TinyLFU eviction) is shared by all tenants and regions.
+ * <p>
+ * Invalidation is O(1): each (tenant, region) has a generation that is part of the key,
+ * so bumping it makes the old entries unreachable and they age out. Other nodes only
+ * see a change once their entries expire ({@code tenant.cache.ttl-seconds}).
+ */
+@Component
+public class TenantCache {
+
+    private final Cache<CacheKey, Object> cache;
+    private final MeterRegistry registry;
+    private final Map<Partition, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Map<Partition, Counter[]> lookups = new ConcurrentHashMap<>();
+
+    public TenantCache(MeterRegistry registry,
+                       @Value("${tenant.cache.max-entries:10000}") long maxEntries,
+                       @Value("${tenant.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.registry = registry;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "tenantReferenceData");
+    }
+
+    /**
+     * Returns the cached value for the current tenant, loading and caching it on a miss.
+     * Without a tenant bound the loader runs uncached.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String region, Object key, Supplier<T> loader) {
+        String tenant = TenantContext.getCurrentTenant();
+        if (tenant == null) {
+            return loader.get();
+        }
+        Partition partition = new Partition(tenant, region);
+        CacheKey cacheKey = new CacheKey(partition, generation(partition).get(), key);
+
+        Object cached = cache.getIfPresent(cacheKey);
+        Counter[] counters = lookupCounters(partition);
+        if (cached != null) {
+            counters[0].increment();
+            return (T) cached;
+        }
+        counters[1].increment();
+        T loaded = loader.get();
+        if (loaded != null) {
+            cache.put(cacheKey, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops everything cached in the region for the tenant, e.g. after a write.
+     */
+    public void invalidate(String tenant, String region) {
+        generation(new Partition(tenant, region)).incrementAndGet();
+    }
+
+    private AtomicLong generation(Partition partition) {
+        return generations.computeIfAbsent(partition, key -> new AtomicLong());
+    }
+
+    private Counter[] lookupCounters(Partition partition) {
+        return lookups.computeIfAbsent(partition, key -> new Counter[]{
+                lookupCounter(key, "hit"),
+                lookupCounter(key, "miss")
+        });
+    }
+
+    private Counter lookupCounter(Partition partition, String result) {
+        return Counter.builder("tenant.cache.lookups")
+                .tags("tenant", partition.tenant(), "region", partition.region(), "result", result)
+                .register(registry);
+    }
+
+    private record Partition(String tenant, String region) {
+    }
+
+    private record CacheKey(Partition partition, long generation, Object key) {
+    }
+}
@@ -1,7 +1,27 @@
 package com.school.multi_tenant_workflow.config;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Holds the tenant the current thread is working for.
+ * Prefer the scoped forms ({@link #runWithTenant}, {@link #callWithTenant}) over set/clear:
+ * the binding is restored when the block exits, so it nests correctly and cannot leak
+ * onto a pooled or virtual thread. Work handed to other threads must be wrapped with
+ * {@link #wrap} or submitted through {@link #propagating(Executor)}; a bare ThreadLocal
+ * is not inherited by @Async methods, CompletableFuture stages or parallel streams.
+ * The API has ScopedValue semantics, but ScopedValue is still a preview API on Java 21,
+ * so the binding lives in a ThreadLocal.
+ * <p>
+ * Alongside the tenant it carries the caller's write stamp: one per HTTP session, holding the
+ * time of that session's last write checkout, so read-your-writes routing follows the user
+ * who wrote rather than everyone working for the same school.
+ */
 public class TenantContext {
     private static final ThreadLocal<String> currentTenant = new ThreadLocal<>();
+    private static final ThreadLocal<AtomicLong> writeStamp = new ThreadLocal<>();
 
     public static void setCurrentTenant(String tenantId) {
         currentTenant.set(tenantId);
@@ -14,4 +34,93 @@ public class TenantContext {
     public static void clear() {
         currentTenant.remove();
     }
-}
\ No newline at end of file
+
+    /**
+     * The bound session's write stamp, or null for work outside a session (scheduled jobs,
+     * the attendance flusher), whose writes then never hold anyone's reads on the primary.
+     */
+    public static AtomicLong getWriteStamp() {
+        return writeStamp.get();
+    }
+
+    /**
+     * Binds a write stamp and returns the previous one, which the caller must restore.
+     */
+    public static AtomicLong bindWriteStamp(AtomicLong stamp) {
+        AtomicLong previous = writeStamp.get();
+        if (stamp == null) {
+            writeStamp.remove();
+        } else {
+            writeStamp.set(stamp);
+        }
+        return previous;
+    }
+
+    public static void runWithTenant(String tenantId, Runnable action) {
+        String previous = currentTenant.get();
+        bind(tenantId);
+        try {
+            action.run();
+        } finally {
+            bind(previous);
+        }
+    }
+
+    public static <T> T callWithTenant(String tenantId, Supplier<T> action) {
+        String previous = currentTenant.get();
+        bind(tenantId);
+        try {
+            return action.get();
+        } finally {
+            bind(previous);
+        }
+    }
+
+    /**
+     * Captures the caller's tenant now and re-binds it wherever the task eventually runs.
+     */
+    public static Runnable wrap(Runnable task) {
+        String tenantId = currentTenant.get();
+        AtomicLong stamp = writeStamp.get();
+        return () -> {
+            AtomicLong previousStamp = bindWriteStamp(stamp);
+            try {
+                runWithTenant(tenantId, task);
+            } finally {
+                bindWriteStamp(previousStamp);
+            }
+        };
+    }
+
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        String tenantId = currentTenant.get();
+        AtomicLong stamp = writeStamp.get();
+        return () -> {
+            String previous = currentTenant.get();
+            AtomicLong previousStamp = bindWriteStamp(stamp);
+            bind(tenantId);
+            try {
+                return task.call();
+            } finally {
+                bind(previous);
+                bindWriteStamp(previousStamp);
+            }
+        };
+    }
+
+    /**
+     * An executor that carries the submitting thread's tenant into each task,
+     * e.g. for {@code CompletableFuture.supplyAsync(supplier, TenantContext.propagating(executor))}.
+     */
+    public static Executor propagating(Executor delegate) {
+        return task -> delegate.execute(wrap(task));
+    }
+
+    private static void bind(String tenantId) {
+        if (tenantId == null) {
+            currentTenant.remove();
+        } else {
+            currentTenant.set(tenantId);
+        }
+    }
+}
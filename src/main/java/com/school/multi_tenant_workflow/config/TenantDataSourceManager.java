@@ -3,50 +3,409 @@ package com.school.multi_tenant_workflow.config;
 import com.school.multi_tenant_workflow.model.TenantConfig;
 import com.school.multi_tenant_workflow.repository.TenantRepository;
 import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariConfigMXBean;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Component
 public class TenantDataSourceManager {
 
-    private final Map<Object, Object> tenantDataSources = new ConcurrentHashMap<>();
+    // Pool bounds for tenants whose TenantConfig leaves them unset
+    static final int DEFAULT_MIN_POOL_SIZE = 2;
+    static final int DEFAULT_MAX_POOL_SIZE = 10;
+
     private final TenantRoutingDataSource routingDataSource;
     private final TenantRepository tenantRepository;
+    private final TenantMetrics tenantMetrics;
+
+    // Known tenants (cheap) vs. open pools (expensive): pools are only opened on first use
+    private final Map<String, TenantConfig> tenantConfigs = new ConcurrentHashMap<>();
+    // Fingerprint of the config each open pool was built from, so identical re-adds are no-ops
+    private final Map<String, String> poolFingerprints = new ConcurrentHashMap<>();
+    private final Map<String, ReentrantLock> activationLocks = new ConcurrentHashMap<>();
+
+    // Schema-per-tenant mode: one pool per shared database, keyed by its connection fingerprint,
+    // and the shared pool each such tenant is currently routed through
+    private final Map<String, SharedPool> sharedPools = new ConcurrentHashMap<>();
+    private final Map<String, String> sharedPoolOfTenant = new ConcurrentHashMap<>();
+    private final ReentrantLock sharedPoolLock = new ReentrantLock();
+    private final int sharedPoolSize;
+
+    // Read-replica pools of each tenant with replicaUrls, opened and closed with its primary pool
+    private final Map<String, List<HikariDataSource>> replicaPools = new ConcurrentHashMap<>();
+    private final int replicaPoolSize;
+
+    // Node-wide connection budget, counted as the sum of maximumPoolSize of all open pools
+    private final int maxTotalConnections;
+    private final long idleEvictionMillis;
+    private final long drainTimeoutMillis;
+    private final AtomicInteger reservedConnections = new AtomicInteger();
+
+    private final AtomicLong activations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong budgetRejections = new AtomicLong();
+    private final AtomicLong poolSwaps = new AtomicLong();
+
+    // Retired pools are closed here once their in-flight connections have been returned; one
+    // virtual thread per pool, so a pool with a stuck borrower never holds up other closes
+    private final ExecutorService drainExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("tenant-pool-drainer-", 0).factory());
 
     public TenantDataSourceManager(TenantRoutingDataSource routingDataSource,
-                                   TenantRepository tenantRepository) {
+                                   TenantRepository tenantRepository,
+                                   TenantMetrics tenantMetrics,
+                                   @Value("${tenant.pool.max-total-connections:500}") int maxTotalConnections,
+                                   @Value("${tenant.pool.idle-eviction-ms:900000}") long idleEvictionMillis,
+                                   @Value("${tenant.pool.drain-timeout-ms:30000}") long drainTimeoutMillis,
+                                   @Value("${tenant.shared-pool.max-size:30}") int sharedPoolSize,
+                                   @Value("${tenant.replica.pool-size:5}") int replicaPoolSize) {
         this.routingDataSource = routingDataSource;
         this.tenantRepository = tenantRepository;
+        this.tenantMetrics = tenantMetrics;
+        this.maxTotalConnections = maxTotalConnections;
+        this.idleEvictionMillis = idleEvictionMillis;
+        this.drainTimeoutMillis = drainTimeoutMillis;
+        this.sharedPoolSize = Math.max(1, sharedPoolSize);
+        this.replicaPoolSize = Math.max(1, replicaPoolSize);
+        this.routingDataSource.setTenantActivator(this::activateTenant);
+    }
+
+    /**
+     * Registers a tenant without opening its pool. The pool is created lazily
+     * the first time a request is routed to the tenant. If an open pool was built
+     * from different connection settings it is retired and re-activated on next use.
+     */
+    public void registerTenant(TenantConfig config) {
+        ReentrantLock lock = lockFor(config.getName());
+        lock.lock();
+        try {
+            tenantConfigs.put(config.getName(), config);
+            tenantMetrics.bindPool(config.getName());
+            String current = poolFingerprints.get(config.getName());
+            if (current != null && !current.equals(fingerprint(config))) {
+                retirePool(config.getName());
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
      * Creates or updates a tenant connection pool.
-     * Uses computeIfAbsent to ensure thread-safety during high-concurrency provisioning.
+     * Re-adding a tenant with unchanged url, credentials and driver is a no-op, so
+     * selecting a school no longer closes the pool under its other users. Changed
+     * settings swap in a new pool atomically and drain the old one in the background.
      */
     public void addTenant(TenantConfig config) {
-        // If the tenant already exists, we close the old pool first to prevent memory leaks
-        removeTenant(config.getName());
-
-        DataSource dataSource = createHikariDataSource(config);
-        tenantDataSources.put(config.getName(), dataSource);
+        ReentrantLock lock = lockFor(config.getName());
+        lock.lock();
+        try {
+            tenantConfigs.put(config.getName(), config);
+            tenantMetrics.bindPool(config.getName());
+            String current = poolFingerprints.get(config.getName());
+            if (current != null && current.equals(fingerprint(config))) {
+                return;
+            }
 
-        updateRoutingDataSource();
+            DataSource previous = routingDataSource.getTenantDataSource(config.getName());
+            activate(config);
+            if (previous != null) {
+                poolSwaps.incrementAndGet();
+                drain(config.getName(), previous);
+            }
+        } finally {
+            lock.unlock();
+        }
 
         System.out.println("✅ Tenant switchboard updated: " + config.getName());
     }
 
-    private void updateRoutingDataSource() {
-        routingDataSource.setTargetDataSources(tenantDataSources);
-        routingDataSource.afterPropertiesSet();
+    /**
+     * Opens the pool for a registered tenant on its first routed request.
+     * Returns null for tenants that were never registered so routing can fall back.
+     */
+    DataSource activateTenant(String tenantName) {
+        TenantConfig config = tenantConfigs.get(tenantName);
+        if (config == null) {
+            return null;
+        }
+
+        ReentrantLock lock = lockFor(tenantName);
+        lock.lock();
+        try {
+            DataSource existing = routingDataSource.getTenantDataSource(tenantName);
+            if (existing != null) {
+                return existing;
+            }
+            return activate(config);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Caller must hold the tenant's activation lock
+    private DataSource activate(TenantConfig config) {
+        if (isShared(config)) {
+            return activateShared(config);
+        }
+
+        HikariConfig hikariConfig = buildHikariConfig(config);
+        reserveConnections(config.getName(), hikariConfig.getMaximumPoolSize());
+
+        HikariDataSource dataSource;
+        try {
+            dataSource = new HikariDataSource(hikariConfig);
+        } catch (RuntimeException e) {
+            reservedConnections.addAndGet(-hikariConfig.getMaximumPoolSize());
+            throw e;
+        }
+
+        List<HikariDataSource> replicas = openReplicaPools(config);
+
+        // A single map put: readers see either the old pools or the new ones, never neither
+        routingDataSource.putTenantDataSource(config.getName(), dataSource, replicas);
+        poolFingerprints.put(config.getName(), fingerprint(config));
+        drainReplicas(config.getName(), replicas.isEmpty()
+                ? replicaPools.remove(config.getName())
+                : replicaPools.put(config.getName(), replicas));
+        // A tenant moved out of a shared database gives up its share of that pool
+        leaveSharedPool(config.getName());
+
+        activations.incrementAndGet();
+        System.out.println("⚡ Activated pool for tenant: " + config.getName());
+        return dataSource;
     }
 
-    private DataSource createHikariDataSource(TenantConfig config) {
+    /**
+     * Routes a schema-per-tenant tenant through the pool of its shared database, opening
+     * that pool if this is the first of its tenants. The pool is reserved against the
+     * budget once, however many tenants share it, and is never evicted as idle; it is
+     * closed when its last tenant is removed or moved elsewhere.
+     */
+    private DataSource activateShared(TenantConfig config) {
+        String poolKey = sharedPoolKey(config);
+        sharedPoolLock.lock();
+        try {
+            SharedPool shared = sharedPools.get(poolKey);
+            if (shared == null) {
+                shared = openSharedPool(poolKey, config);
+                sharedPools.put(poolKey, shared);
+            }
+            shared.tenants().add(config.getName());
+
+            DataSource dataSource = new TenantSchemaDataSource(shared.dataSource(), config.getSchemaName(), config.getDriverClass());
+            routingDataSource.putTenantDataSource(config.getName(), dataSource);
+            poolFingerprints.put(config.getName(), fingerprint(config));
+            drainReplicas(config.getName(), replicaPools.remove(config.getName()));
+
+            String previousKey = sharedPoolOfTenant.put(config.getName(), poolKey);
+            if (previousKey != null && !previousKey.equals(poolKey)) {
+                releaseSharedPool(previousKey, config.getName());
+            }
+        } finally {
+            sharedPoolLock.unlock();
+        }
+
+        activations.incrementAndGet();
+        System.out.println("⚡ Activated schema " + config.getSchemaName() + " for tenant: " + config.getName());
+        return routingDataSource.getTenantDataSource(config.getName());
+    }
+
+    private SharedPool openSharedPool(String poolKey, TenantConfig config) {
+        HikariConfig hikariConfig = buildHikariConfig(config);
+        hikariConfig.setPoolName("HikariPool-shared-" + poolKey.substring(0, 8));
+        hikariConfig.setMaximumPoolSize(sharedPoolSize);
+        hikariConfig.setMinimumIdle(Math.min(DEFAULT_MIN_POOL_SIZE, sharedPoolSize));
+        reserveConnections(config.getName(), sharedPoolSize);
+        try {
+            return new SharedPool(new HikariDataSource(hikariConfig), ConcurrentHashMap.newKeySet());
+        } catch (RuntimeException e) {
+            reservedConnections.addAndGet(-sharedPoolSize);
+            throw e;
+        }
+    }
+
+    /**
+     * Opens one read-only pool per replica url. Replicas are optional capacity: they only take
+     * connections that are free in the budget (never evicting), start without connecting so a
+     * replica that is down cannot block activation, and time out quickly so reads fall back
+     * to the primary instead of waiting.
+     */
+    private List<HikariDataSource> openReplicaPools(TenantConfig config) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        List<String> urls = replicaUrls(config);
+        for (int i = 0; i < urls.size(); i++) {
+            int granted = tryReserveConnections(replicaPoolSize);
+            if (granted < replicaPoolSize) {
+                reservedConnections.addAndGet(-granted);
+                System.err.println("Connection budget too low for the replicas of tenant: " + config.getName());
+                break;
+            }
+            HikariConfig hikariConfig = buildHikariConfig(config);
+            hikariConfig.setJdbcUrl(urls.get(i));
+            hikariConfig.setPoolName("HikariPool-" + config.getName() + "-replica-" + i);
+            hikariConfig.setMaximumPoolSize(replicaPoolSize);
+            hikariConfig.setMinimumIdle(Math.min(DEFAULT_MIN_POOL_SIZE, replicaPoolSize));
+            hikariConfig.setReadOnly(true);
+            hikariConfig.setConnectionTimeout(2000);
+            hikariConfig.setInitializationFailTimeout(-1);
+            try {
+                pools.add(new HikariDataSource(hikariConfig));
+            } catch (RuntimeException e) {
+                reservedConnections.addAndGet(-replicaPoolSize);
+                System.err.println("Could not open replica " + i + " of tenant " + config.getName() + ": " + e.getMessage());
+            }
+        }
+        return pools;
+    }
+
+    private void drainReplicas(String tenantName, List<HikariDataSource> replicas) {
+        if (replicas != null) {
+            replicas.forEach(replica -> drain(tenantName + " (replica)", replica));
+        }
+    }
+
+    static List<String> replicaUrls(TenantConfig config) {
+        if (isShared(config) || config.getReplicaUrls() == null) {
+            return List.of();
+        }
+        return Arrays.stream(config.getReplicaUrls().split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .toList();
+    }
+
+    // Drops the tenant from whichever shared pool it was routed through, if any
+    private void leaveSharedPool(String tenantName) {
+        String poolKey = sharedPoolOfTenant.remove(tenantName);
+        if (poolKey == null) {
+            return;
+        }
+        sharedPoolLock.lock();
+        try {
+            releaseSharedPool(poolKey, tenantName);
+        } finally {
+            sharedPoolLock.unlock();
+        }
+    }
+
+    // Caller must hold sharedPoolLock
+    private void releaseSharedPool(String poolKey, String tenantName) {
+        SharedPool shared = sharedPools.get(poolKey);
+        if (shared == null) {
+            return;
+        }
+        shared.tenants().remove(tenantName);
+        if (shared.tenants().isEmpty()) {
+            sharedPools.remove(poolKey);
+            drain("shared database " + poolKey.substring(0, 8), shared.dataSource());
+        }
+    }
+
+    private void reserveConnections(String tenantName, int size) {
+        while (true) {
+            int reserved = reservedConnections.get();
+            if (reserved + size <= maxTotalConnections) {
+                if (reservedConnections.compareAndSet(reserved, reserved + size)) {
+                    return;
+                }
+                continue;
+            }
+            // Over budget: make room by closing the least recently used idle pool
+            if (!evictLeastRecentlyUsed(tenantName)) {
+                budgetRejections.incrementAndGet();
+                throw new IllegalStateException("Connection budget of " + maxTotalConnections
+                        + " exhausted, cannot open pool for tenant: " + tenantName);
+            }
+        }
+    }
+
+    private boolean evictLeastRecentlyUsed(String excludedTenant) {
+        return routingDataSource.getLastAccessTimes().entrySet().stream()
+                .filter(entry -> !entry.getKey().equals(excludedTenant))
+                .sorted(Map.Entry.comparingByValue(Comparator.naturalOrder()))
+                .map(Map.Entry::getKey)
+                .toList()
+                .stream()
+                .anyMatch(this::evict);
+    }
+
+    /**
+     * Closes pools that have not been routed to within the idle eviction window.
+     * The tenant stays registered and is re-activated on its next request.
+     */
+    @Scheduled(fixedDelayString = "${tenant.pool.eviction-interval-ms:60000}")
+    public void evictIdleTenants() {
+        long cutoff = System.currentTimeMillis() - idleEvictionMillis;
+        routingDataSource.getLastAccessTimes().entrySet().stream()
+                .filter(entry -> entry.getValue() < cutoff)
+                .sorted(Map.Entry.comparingByValue(Comparator.naturalOrder()))
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(this::evict);
+    }
+
+    private boolean evict(String tenantName) {
+        // tryLock: never wait on a tenant that is busy activating, that could deadlock two activations
+        ReentrantLock lock = lockFor(tenantName);
+        if (!lock.tryLock()) {
+            return false;
+        }
+        try {
+            DataSource pool = routingDataSource.getTenantDataSource(tenantName);
+            // Reads may be keeping only the replicas busy
+            if (!isIdle(pool) || !replicaPools.getOrDefault(tenantName, List.of()).stream().allMatch(this::isIdle)) {
+                return false;
+            }
+            // Closed at once so the budget is free for the caller; a request that looked the pool
+            // up just before this is re-routed by TenantRoutingDataSource when its borrow fails
+            closeNow(retire(tenantName));
+            evictions.incrementAndGet();
+            System.out.println("💤 Evicted idle pool for tenant: " + tenantName);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isIdle(DataSource pool) {
+        if (!(pool instanceof HikariDataSource hikari)) {
+            return false;
+        }
+        HikariPoolMXBean poolBean = hikari.getHikariPoolMXBean();
+        return poolBean == null || poolBean.getActiveConnections() == 0;
+    }
+
+    private ReentrantLock lockFor(String tenantName) {
+        return activationLocks.computeIfAbsent(tenantName, key -> new ReentrantLock());
+    }
+
+    private HikariConfig buildHikariConfig(TenantConfig config) {
         HikariConfig hikariConfig = new HikariConfig();
 
         // Basic Connection
@@ -56,13 +415,15 @@ public class TenantDataSourceManager {
         hikariConfig.setDriverClassName(config.getDriverClass());
         hikariConfig.setPoolName("HikariPool-" + config.getName());
 
-        // Performance Tuning
-        hikariConfig.setMaximumPoolSize(10);
-        hikariConfig.setMinimumIdle(2);
+        // Performance Tuning: start at the default size; TenantPoolSizer adjusts it within the tenant's bounds
+        int initialSize = Math.max(minPoolSize(config), Math.min(DEFAULT_MAX_POOL_SIZE, maxPoolSize(config)));
+        hikariConfig.setMaximumPoolSize(initialSize);
+        hikariConfig.setMinimumIdle(Math.min(minPoolSize(config), initialSize));
         hikariConfig.setIdleTimeout(300000);
         hikariConfig.setMaxLifetime(1800000);
         hikariConfig.setConnectionTimeout(10000);
-        hikariConfig.setConnectionTestQuery("SELECT 1");
+        // No connectionTestQuery: Hikari then validates with the driver's Connection.isValid(),
+        // a protocol-level ping that skips parsing and planning a statement
 
         // Database Specific Optimizations
         if (isMySQL(config.getDriverClass())) {
@@ -71,7 +432,7 @@ public class TenantDataSourceManager {
             applyPostgresOptimizations(hikariConfig);
         }
 
-        return new HikariDataSource(hikariConfig);
+        return hikariConfig;
     }
 
     private void applyMySQLOptimizations(HikariConfig config) {
@@ -102,21 +463,222 @@ public class TenantDataSourceManager {
     }
 
     public boolean testConnection(TenantConfig config) {
-        // Use a temporary data source for testing so we don't pollute the pool map
-        try (HikariDataSource testDs = (HikariDataSource) createHikariDataSource(config);
-             Connection conn = testDs.getConnection()) {
+        // A single unpooled connection; building a pool just to ping the database is wasted work
+        DriverManagerDataSource testDs = new DriverManagerDataSource(config.getUrl(), config.getUsername(), config.getPassword());
+        testDs.setDriverClassName(config.getDriverClass());
+        try (Connection conn = testDs.getConnection()) {
             return conn.isValid(2);
         } catch (SQLException e) {
             return false;
         }
     }
 
+    /**
+     * Changes the size of a tenant's open pool in place, clamped to the tenant's bounds.
+     * Growth only takes connections that are free in the node-wide budget; resizing never
+     * evicts other tenants. Returns the size now in effect, or -1 if the tenant has no open
+     * pool or is busy activating (the caller simply tries again later).
+     */
+    public int resizePool(String tenantName, int requestedSize) {
+        ReentrantLock lock = lockFor(tenantName);
+        if (!lock.tryLock()) {
+            return -1;
+        }
+        try {
+            TenantConfig config = tenantConfigs.get(tenantName);
+            if (config == null || !(routingDataSource.getTenantDataSource(tenantName) instanceof HikariDataSource hikari)
+                    || hikari.isClosed()) {
+                return -1;
+            }
+            int current = hikari.getMaximumPoolSize();
+            int target = Math.max(Math.max(1, minPoolSize(config)), Math.min(requestedSize, maxPoolSize(config)));
+            if (target > current) {
+                target = current + tryReserveConnections(target - current);
+            } else if (target < current) {
+                reservedConnections.addAndGet(target - current);
+            }
+            if (target == current) {
+                return current;
+            }
+
+            // Pool size and minimum idle are the settings Hikari allows to change on a running pool
+            HikariConfigMXBean poolConfig = hikari.getHikariConfigMXBean();
+            int minimumIdle = Math.min(minPoolSize(config), target);
+            if (target > current) {
+                poolConfig.setMaximumPoolSize(target);
+                poolConfig.setMinimumIdle(minimumIdle);
+            } else {
+                poolConfig.setMinimumIdle(minimumIdle);
+                poolConfig.setMaximumPoolSize(target);
+            }
+            return target;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Takes up to the requested number of connections from the free budget, without evicting
+    private int tryReserveConnections(int wanted) {
+        while (true) {
+            int reserved = reservedConnections.get();
+            int granted = Math.min(wanted, maxTotalConnections - reserved);
+            if (granted <= 0) {
+                return 0;
+            }
+            if (reservedConnections.compareAndSet(reserved, reserved + granted)) {
+                return granted;
+            }
+        }
+    }
+
+    static int minPoolSize(TenantConfig config) {
+        return config.getMinPoolSize() != null ? Math.max(0, config.getMinPoolSize()) : DEFAULT_MIN_POOL_SIZE;
+    }
+
+    static int maxPoolSize(TenantConfig config) {
+        int max = config.getMaxPoolSize() != null ? config.getMaxPoolSize() : DEFAULT_MAX_POOL_SIZE;
+        return Math.max(Math.max(1, max), minPoolSize(config));
+    }
+
+    public List<String> getRegisteredTenantNames() {
+        return List.copyOf(tenantConfigs.keySet());
+    }
+
+    /**
+     * Borrows a connection to a tenant for one-off work that should not open a pool:
+     * the tenant's pool is used if it is already open, otherwise a single unpooled
+     * connection is made so fan-out over every tenant does not churn the connection budget.
+     */
+    public Connection openConnection(String tenantName) throws SQLException {
+        DataSource open = routingDataSource.getTenantDataSource(tenantName);
+        if (open != null) {
+            return open.getConnection();
+        }
+        TenantConfig config = tenantConfigs.get(tenantName);
+        if (config == null) {
+            throw new SQLException("Unknown tenant: " + tenantName);
+        }
+        DriverManagerDataSource direct = new DriverManagerDataSource(config.getUrl(), config.getUsername(), config.getPassword());
+        direct.setDriverClassName(config.getDriverClass());
+        Connection connection = direct.getConnection();
+        return isShared(config)
+                ? TenantSchemaDataSource.selectSchema(connection, config.getSchemaName(), config.getDriverClass())
+                : connection;
+    }
+
+    /**
+     * Activation, eviction and budget counters used to size nodes.
+     */
+    public Map<String, Object> getPoolStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("registeredTenants", tenantConfigs.size());
+        stats.put("openPools", routingDataSource.getTenantCount() - sharedPoolOfTenant.size() + sharedPools.size());
+        stats.put("sharedPools", sharedPools.size());
+        stats.put("sharedPoolTenants", sharedPoolOfTenant.size());
+        stats.put("replicaPools", replicaPools.values().stream().mapToInt(List::size).sum());
+        stats.putAll(routingDataSource.getReplicaStatistics());
+        stats.put("reservedConnections", reservedConnections.get());
+        stats.put("maxTotalConnections", maxTotalConnections);
+        stats.put("activations", activations.get());
+        stats.put("evictions", evictions.get());
+        stats.put("budgetRejections", budgetRejections.get());
+        stats.put("poolSwaps", poolSwaps.get());
+        return stats;
+    }
+
     public void removeTenant(String tenantName) {
-        Object removed = tenantDataSources.remove(tenantName);
-        if (removed instanceof HikariDataSource) {
-            ((HikariDataSource) removed).close();
-            updateRoutingDataSource();
-            System.out.println("🗑️ Closed pool and removed tenant: " + tenantName);
+        ReentrantLock lock = lockFor(tenantName);
+        lock.lock();
+        try {
+            tenantConfigs.remove(tenantName);
+            tenantMetrics.unbindPool(tenantName);
+            if (retirePool(tenantName)) {
+                System.out.println("🗑️ Closed pool and removed tenant: " + tenantName);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Caller must hold the tenant's activation lock
+    private boolean retirePool(String tenantName) {
+        DataSource removed = retire(tenantName);
+        if (removed == null) {
+            return false;
+        }
+        drain(tenantName, removed);
+        return true;
+    }
+
+    private DataSource retire(String tenantName) {
+        poolFingerprints.remove(tenantName);
+        DataSource removed = routingDataSource.removeTenantDataSource(tenantName);
+        drainReplicas(tenantName, replicaPools.remove(tenantName));
+        // Retiring a schema tenant only drops its route; the shared pool closes with its last tenant
+        leaveSharedPool(tenantName);
+        return removed;
+    }
+
+    /**
+     * Closes a pool that is no longer routable once its borrowed connections come back,
+     * or after the drain timeout, so in-flight requests are not cut off.
+     */
+    private void drain(String tenantName, DataSource retired) {
+        if (!(retired instanceof HikariDataSource hikari)) {
+            return;
+        }
+        drainExecutor.execute(() -> {
+            long deadline = System.currentTimeMillis() + drainTimeoutMillis;
+            HikariPoolMXBean poolBean = hikari.getHikariPoolMXBean();
+            try {
+                while (poolBean != null && poolBean.getActiveConnections() > 0
+                        && System.currentTimeMillis() < deadline) {
+                    poolBean.softEvictConnections();
+                    Thread.sleep(100);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                closeNow(hikari);
+                System.out.println("🚰 Drained retired pool for tenant: " + tenantName);
+            }
+        });
+    }
+
+    private void closeNow(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource hikari && !hikari.isClosed()) {
+            reservedConnections.addAndGet(-hikari.getMaximumPoolSize());
+            hikari.close();
+        }
+    }
+
+    static boolean isShared(TenantConfig config) {
+        return config.getSchemaName() != null && !config.getSchemaName().isBlank();
+    }
+
+    private static String fingerprint(TenantConfig config) {
+        return digest(config.getUrl(), config.getUsername(), config.getPassword(),
+                config.getDriverClass(), config.getSchemaName(), config.getReplicaUrls());
+    }
+
+    // Tenants whose shared database is reached with the same url, credentials and driver share a pool
+    private static String sharedPoolKey(TenantConfig config) {
+        return digest(config.getUrl(), config.getUsername(), config.getPassword(), config.getDriverClass());
+    }
+
+    private static String digest(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
-}
\ No newline at end of file
+
+    private record SharedPool(HikariDataSource dataSource, Set<String> tenants) {
+    }
+}
@@ -0,0 +1,247 @@
+package com.school.multi_tenant_workflow.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-tenant circuit breaker plus a background prober, so requests for a school whose
+ * database is down fail in microseconds instead of each waiting out the pool's connection timeout.
+ * <ul>
+ *   <li>CLOSED: traffic flows; {@code tenant.health.failure-threshold} consecutive failed
+ *       checkouts or probes open the circuit.</li>
+ *   <li>OPEN: {@link TenantRoutingDataSource} rejects the tenant outright. After
+ *       {@code tenant.health.open-ms} the circuit goes half-open.</li>
+ *   <li>HALF_OPEN: one trial checkout at a time; success closes the circuit, failure re-opens it.</li>
+ * </ul>
+ * The prober runs every {@code tenant.health.probe-interval-ms} over open pools and over
+ * tenants whose circuit is not closed, borrowing a connection and calling {@code isValid}.
+ * A successful probe closes the circuit without waiting for user traffic.
+ * Healthy tenants have no entry here, so the routing hot path is a single map lookup.
+ * Meters: {@code tenant.health.state} (tenant; 0 closed, 1 half-open, 2 open),
+ * {@code tenant.health.transitions} (tenant, from, to), {@code tenant.health.rejections} (tenant)
+ * and {@code tenant.health.open-circuits}.
+ */
+@Component
+public class TenantHealthMonitor implements TenantRoutingDataSource.HealthGuard {
+
+    enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final TenantRoutingDataSource routingDataSource;
+    private final TenantDataSourceManager manager;
+    private final MeterRegistry meterRegistry;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final int probeTimeoutSeconds;
+
+    // Only tenants that have failed at least once since they were last healthy
+    private final Map<String, TenantHealth> health = new ConcurrentHashMap<>();
+    private final Set<String> probesInFlight = ConcurrentHashMap.newKeySet();
+    private final ExecutorService probeExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Wall-clock millis for the open window; replaced in tests so they need not sleep
+    private volatile LongSupplier clock = System::currentTimeMillis;
+
+    public TenantHealthMonitor(TenantRoutingDataSource routingDataSource,
+                               TenantDataSourceManager manager,
+                               MeterRegistry meterRegistry,
+                               @Value("${tenant.health.failure-threshold:3}") int failureThreshold,
+                               @Value("${tenant.health.open-ms:30000}") long openMillis,
+                               @Value("${tenant.health.probe-timeout-seconds:2}") int probeTimeoutSeconds) {
+        this.routingDataSource = routingDataSource;
+        this.manager = manager;
+        this.meterRegistry = meterRegistry;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+        this.probeTimeoutSeconds = Math.max(1, probeTimeoutSeconds);
+        Gauge.builder("tenant.health.open-circuits", health,
+                        entries -> entries.values().stream().filter(entry -> entry.state == State.OPEN).count())
+                .description("Tenants currently failing fast")
+                .register(meterRegistry);
+        this.routingDataSource.setHealthGuard(this);
+    }
+
+    void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean allowRequest(String tenantName) {
+        TenantHealth entry = health.get(tenantName);
+        if (entry == null || entry.state == State.CLOSED) {
+            return true;
+        }
+        if (entry.state == State.OPEN) {
+            if (clock.getAsLong() - entry.openedAt < openMillis) {
+                reject(tenantName);
+                return false;
+            }
+            synchronized (entry) {
+                if (entry.state == State.OPEN) {
+                    transition(entry, State.HALF_OPEN);
+                }
+            }
+        }
+        // Half-open: let a single trial through; everyone else keeps failing fast until it reports back
+        if (entry.state == State.CLOSED || entry.trialInFlight.compareAndSet(false, true)) {
+            return true;
+        }
+        reject(tenantName);
+        return false;
+    }
+
+    @Override
+    public void recordSuccess(String tenantName) {
+        TenantHealth entry = health.get(tenantName);
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            entry.consecutiveFailures = 0;
+            entry.trialInFlight.set(false);
+            if (entry.state != State.CLOSED) {
+                transition(entry, State.CLOSED);
+            }
+        }
+    }
+
+    @Override
+    public void recordFailure(String tenantName, Exception failure) {
+        if (!isConnectivityFailure(failure)) {
+            // e.g. the node's connection budget is exhausted; says nothing about the tenant's database
+            TenantHealth entry = health.get(tenantName);
+            if (entry != null) {
+                entry.trialInFlight.set(false);
+            }
+            return;
+        }
+        TenantHealth entry = health.computeIfAbsent(tenantName, this::newHealth);
+        synchronized (entry) {
+            entry.trialInFlight.set(false);
+            entry.consecutiveFailures++;
+            if (entry.state == State.HALF_OPEN
+                    || (entry.state == State.CLOSED && entry.consecutiveFailures >= failureThreshold)) {
+                entry.openedAt = clock.getAsLong();
+                transition(entry, State.OPEN);
+            } else if (entry.state == State.OPEN) {
+                entry.openedAt = clock.getAsLong();
+            }
+        }
+    }
+
+    /**
+     * Probes every open pool and every tenant with a tripped circuit, one probe per tenant at a time.
+     * A probe against a dead host may block for the pool's connection timeout, so probes run on
+     * virtual threads and never delay the next round for other tenants.
+     */
+    @Scheduled(fixedDelayString = "${tenant.health.probe-interval-ms:5000}")
+    public void probeTenants() {
+        Set<String> registered = new HashSet<>(manager.getRegisteredTenantNames());
+        health.keySet().stream()
+                .filter(tenantName -> !registered.contains(tenantName))
+                .toList()
+                .forEach(this::forget);
+
+        Set<String> targets = new HashSet<>(routingDataSource.getLastAccessTimes().keySet());
+        health.forEach((tenantName, entry) -> {
+            if (entry.state != State.CLOSED) {
+                targets.add(tenantName);
+            }
+        });
+        for (String tenantName : targets) {
+            if (registered.contains(tenantName) && probesInFlight.add(tenantName)) {
+                probeExecutor.execute(() -> probe(tenantName));
+            }
+        }
+    }
+
+    private void probe(String tenantName) {
+        try (Connection connection = manager.openConnection(tenantName)) {
+            if (!connection.isValid(probeTimeoutSeconds)) {
+                throw new SQLException("Connection for tenant " + tenantName + " failed validation");
+            }
+            recordSuccess(tenantName);
+        } catch (SQLException | RuntimeException e) {
+            recordFailure(tenantName, e);
+        } finally {
+            probesInFlight.remove(tenantName);
+        }
+    }
+
+    /**
+     * Tenants that are not fully healthy, with their circuit state and failure count.
+     */
+    public Map<String, Object> getHealth() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        health.forEach((tenantName, entry) ->
+                snapshot.put(tenantName, Map.of("state", entry.state, "consecutiveFailures", entry.consecutiveFailures)));
+        return snapshot;
+    }
+
+    State getState(String tenantName) {
+        TenantHealth entry = health.get(tenantName);
+        return entry != null ? entry.state : State.CLOSED;
+    }
+
+    private static boolean isConnectivityFailure(Exception failure) {
+        // Pool start-up failures arrive as a RuntimeException wrapping the driver's SQLException
+        return failure instanceof SQLException || failure.getCause() instanceof SQLException;
+    }
+
+    private TenantHealth newHealth(String tenantName) {
+        TenantHealth entry = new TenantHealth(tenantName);
+        entry.gauge = Gauge.builder("tenant.health.state", entry, value -> value.state.ordinal())
+                .description("Circuit state: 0 closed, 1 half-open, 2 open")
+                .tag("tenant", tenantName)
+                .register(meterRegistry);
+        return entry;
+    }
+
+    private void forget(String tenantName) {
+        TenantHealth entry = health.remove(tenantName);
+        if (entry != null) {
+            meterRegistry.remove(entry.gauge);
+        }
+    }
+
+    // Caller must hold the entry's monitor
+    private void transition(TenantHealth entry, State to) {
+        State from = entry.state;
+        entry.state = to;
+        meterRegistry.counter("tenant.health.transitions",
+                "tenant", entry.tenantName, "from", from.name(), "to", to.name()).increment();
+        System.out.println((to == State.OPEN ? "🔴" : to == State.HALF_OPEN ? "🟡" : "🟢")
+                + " Circuit " + from + " -> " + to + " for tenant: " + entry.tenantName);
+    }
+
+    private void reject(String tenantName) {
+        meterRegistry.counter("tenant.health.rejections", "tenant", tenantName).increment();
+    }
+
+    private static final class TenantHealth {
+        private final String tenantName;
+        private final AtomicBoolean trialInFlight = new AtomicBoolean();
+        private volatile State state = State.CLOSED;
+        private volatile long openedAt;
+        private volatile int consecutiveFailures;
+        private Gauge gauge;
+
+        private TenantHealth(String tenantName) {
+            this.tenantName = tenantName;
+        }
+    }
+}
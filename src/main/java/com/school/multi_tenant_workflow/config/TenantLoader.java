@@ -1,40 +1,189 @@
 package com.school.multi_tenant_workflow.config;
 
-import com.school.multi_tenant_workflow.repository.TenantRepository;
+import com.school.multi_tenant_workflow.model.TenantConfig;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
 /**
  * This class ensures that all tenants stored in the Master DB
- * are loaded into the DataSource map when the application starts.
+ * are registered with the DataSource manager when the application starts.
+ * Pools are opened lazily on first use, so startup cost no longer grows with tenant count.
+ * Priority tenants (or all tenants, if configured) are warmed up in parallel on virtual
+ * threads; the node reports ready once the Master DB and every priority tenant are up.
  */
 @Component
 public class TenantLoader implements CommandLineRunner {
 
-    private final TenantRepository repository;
+    private final TenantRegistry registry;
     private final TenantDataSourceManager manager;
 
-    public TenantLoader(TenantRepository repository, TenantDataSourceManager manager) {
-        this.repository = repository;
+    private final Set<String> priorityTenants;
+    private final boolean warmupAll;
+    private final long warmupTimeoutMillis;
+    private final Semaphore warmupPermits;
+
+    // Priority tenants that actually exist in the registry; readiness waits for these
+    private volatile Set<String> requiredTenants = Set.of();
+    private final Set<String> warmTenants = ConcurrentHashMap.newKeySet();
+    // Tenants whose warm-up failed or timed out; retried on a schedule
+    private final Set<String> retryQueue = ConcurrentHashMap.newKeySet();
+    // Tenants with a warm-up attempt running, so a retry never starts a second one
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean retryRunning = new AtomicBoolean();
+    private volatile boolean masterUp;
+    private volatile boolean warmupStarted;
+
+    public TenantLoader(TenantRegistry registry, TenantDataSourceManager manager,
+                        @Value("${tenant.warmup.priority-tenants:}") String priorityTenants,
+                        @Value("${tenant.warmup.all:false}") boolean warmupAll,
+                        @Value("${tenant.warmup.concurrency:16}") int warmupConcurrency,
+                        @Value("${tenant.warmup.timeout-ms:15000}") long warmupTimeoutMillis) {
+        this.registry = registry;
         this.manager = manager;
+        this.priorityTenants = Arrays.stream(priorityTenants.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.warmupAll = warmupAll;
+        this.warmupTimeoutMillis = warmupTimeoutMillis;
+        this.warmupPermits = new Semaphore(warmupConcurrency);
     }
 
     @Override
     public void run(String... args) {
-        System.out.println(">>> Starting Tenant Loader: Initializing dynamic connections...");
+        System.out.println(">>> Starting Tenant Loader: Registering tenants...");
+
+        // Fetch all configurations from the Master DB into the registry cache, which registers
+        // each tenant; its pool is created on the first routed request
+        List<TenantConfig> tenants = registry.reload();
+        masterUp = true;
+
+        System.out.println(">>> Registered " + tenants.size() + " tenants.");
+
+        requiredTenants = tenants.stream()
+                .map(TenantConfig::getName)
+                .filter(priorityTenants::contains)
+                .collect(Collectors.toUnmodifiableSet());
+        priorityTenants.stream()
+                .filter(name -> !requiredTenants.contains(name))
+                .forEach(name -> System.err.println("Priority tenant not found in registry: " + name));
+
+        List<String> toWarm = tenants.stream()
+                .map(TenantConfig::getName)
+                .filter(name -> warmupAll || priorityTenants.contains(name))
+                .toList();
+
+        // Warm up in the background so one unreachable school cannot hold up startup
+        warmupStarted = true;
+        Thread.ofVirtual().name("tenant-warmup").start(() -> {
+            warmUp(toWarm);
+            System.out.println(">>> Tenant warm-up completed. Ready: " + isReady());
+        });
+    }
 
-        // Fetch all configurations from the Master DB
-        repository.findAll().forEach(tenantConfig -> {
+    private void warmUp(List<String> tenantNames) {
+        // shutdown() rather than close(): a timed-out attempt must not be waited for
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            Map<String, Future<?>> futures = new LinkedHashMap<>();
+            Map<String, Long> deadlines = new HashMap<>();
+            for (String name : tenantNames) {
+                // An earlier attempt that timed out may still be opening the pool; it records its own outcome
+                if (!inFlight.add(name)) {
+                    continue;
+                }
+                deadlines.put(name, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(warmupTimeoutMillis));
+                futures.put(name, executor.submit(() -> warmUpTenant(name)));
+            }
+
+            // Each tenant gets its timeout from when it was submitted, not from when it is waited on
+            futures.forEach((name, future) -> {
+                try {
+                    future.get(Math.max(0, deadlines.get(name) - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // Not cancelled: interrupting does not stop a pool that is already starting.
+                    // The attempt runs on and a late success still marks the tenant warm.
+                    if (!warmTenants.contains(name)) {
+                        retryQueue.add(name);
+                    }
+                    System.err.println("Warm-up timed out for tenant: " + name);
+                } catch (ExecutionException e) {
+                    System.err.println("Warm-up failed for tenant: " + name + " (" + e.getCause().getMessage() + ")");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void warmUpTenant(String tenantName) {
+        // The timeout clock includes time spent waiting for a permit, so it bounds end-to-end latency
+        warmupPermits.acquireUninterruptibly();
+        try {
+            if (manager.activateTenant(tenantName) == null) {
+                throw new IllegalStateException("Tenant is not registered: " + tenantName);
+            }
+            warmTenants.add(tenantName);
+            retryQueue.remove(tenantName);
+        } catch (RuntimeException e) {
+            retryQueue.add(tenantName);
+            throw e;
+        } finally {
+            warmupPermits.release();
+            inFlight.remove(tenantName);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${tenant.warmup.retry-interval-ms:30000}")
+    public void retryFailedTenants() {
+        if (retryQueue.isEmpty() || !retryRunning.compareAndSet(false, true)) {
+            return;
+        }
+        List<String> retry = List.copyOf(retryQueue);
+        System.out.println(">>> Retrying warm-up for " + retry.size() + " tenants");
+        // Off the shared scheduler thread: a retry round blocks for up to the warm-up timeout
+        Thread.ofVirtual().name("tenant-warmup-retry").start(() -> {
             try {
-                // Register each tenant in the routing map
-                manager.addTenant(tenantConfig);
-                System.out.println("Successfully loaded connection for: " + tenantConfig.getName());
-            } catch (Exception e) {
-                System.err.println("Failed to load connection for tenant: " + tenantConfig.getName());
-                e.printStackTrace();
+                warmUp(retry);
+            } finally {
+                retryRunning.set(false);
             }
         });
+    }
+
+    public boolean isReady() {
+        return masterUp && warmupStarted && warmTenants.containsAll(requiredTenants);
+    }
 
-        System.out.println(">>> Tenant Loader completed. System is ready.");
+    public Map<String, Object> getReadiness() {
+        Map<String, Object> readiness = new LinkedHashMap<>();
+        readiness.put("status", isReady() ? "ready" : "warming");
+        readiness.put("masterUp", masterUp);
+        readiness.put("priorityTenants", requiredTenants.size());
+        readiness.put("priorityTenantsUp", requiredTenants.stream().filter(warmTenants::contains).count());
+        readiness.put("warmTenants", warmTenants.size());
+        readiness.put("retryQueue", retryQueue.size());
+        return readiness;
     }
-}
\ No newline at end of file
+}
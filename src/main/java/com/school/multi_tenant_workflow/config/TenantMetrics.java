@@ -0,0 +1,131 @@
+package com.school.multi_tenant_workflow.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Per-tenant Micrometer meters, served on /actuator/metrics and /actuator/prometheus:
+ * <ul>
+ *   <li>{@code tenant.pool.connections} (tenant, state = active|idle|pending|max)</li>
+ *   <li>{@code tenant.pool.acquire} time to borrow a connection through the routing DataSource</li>
+ *   <li>{@code tenant.repository.calls} / {@code tenant.repository.latency} (tenant, repository, method)</li>
+ * </ul>
+ * Pool gauges read whichever pool is currently routed for the tenant, so they survive
+ * lazy activation, eviction and pool swaps. Calls are always counted; timers only record
+ * a {@code tenant.metrics.sample-rate} fraction of calls so hot paths can skip the clock work.
+ */
+@Component
+public class TenantMetrics {
+
+    public static final String NO_TENANT = "master";
+
+    private final MeterRegistry registry;
+    private final TenantRoutingDataSource routingDataSource;
+    private final double sampleRate;
+
+    private final Map<String, List<Meter>> poolGauges = new ConcurrentHashMap<>();
+    private final Map<String, Timer> acquireTimers = new ConcurrentHashMap<>();
+    private final Map<RepositoryCall, Timer> repositoryTimers = new ConcurrentHashMap<>();
+    private final Map<RepositoryCall, Counter> repositoryCounters = new ConcurrentHashMap<>();
+
+    public TenantMetrics(MeterRegistry registry, TenantRoutingDataSource routingDataSource,
+                         @Value("${tenant.metrics.sample-rate:1.0}") double sampleRate) {
+        this.registry = registry;
+        this.routingDataSource = routingDataSource;
+        this.sampleRate = Math.max(0.0, Math.min(1.0, sampleRate));
+        this.routingDataSource.setAcquireListener(this::recordAcquire);
+    }
+
+    public boolean shouldSample() {
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * Registers the pool gauges for a tenant once; they report zero while the pool is closed.
+     */
+    public void bindPool(String tenantName) {
+        poolGauges.computeIfAbsent(tenantName, name -> List.of(
+                poolGauge(name, "active", HikariPoolMXBean::getActiveConnections),
+                poolGauge(name, "idle", HikariPoolMXBean::getIdleConnections),
+                poolGauge(name, "pending", HikariPoolMXBean::getThreadsAwaitingConnection),
+                Gauge.builder("tenant.pool.connections", routingDataSource, routing ->
+                                routing.getTenantDataSource(name) instanceof HikariDataSource hikari
+                                        ? hikari.getMaximumPoolSize() : 0)
+                        .tags("tenant", name, "state", "max")
+                        .register(registry)));
+    }
+
+    public void unbindPool(String tenantName) {
+        List<Meter> gauges = poolGauges.remove(tenantName);
+        if (gauges != null) {
+            gauges.forEach(registry::remove);
+        }
+    }
+
+    void recordAcquire(String tenantName, long nanos) {
+        if (!shouldSample()) {
+            return;
+        }
+        acquireTimers.computeIfAbsent(tenantName, name -> Timer.builder("tenant.pool.acquire")
+                        .description("Time to borrow a connection from the tenant's pool")
+                        .tag("tenant", name)
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * The tenant's acquire timer, or null if no acquire has been sampled yet.
+     */
+    Timer getAcquireTimer(String tenantName) {
+        return acquireTimers.get(tenantName);
+    }
+
+    public void countRepositoryCall(String tenantName, String repository, String method, boolean failed) {
+        RepositoryCall call = new RepositoryCall(tenantName, repository, method, failed);
+        repositoryCounters.computeIfAbsent(call, key -> Counter.builder("tenant.repository.calls")
+                        .tags("tenant", key.tenant(), "repository", key.repository(), "method", key.method(),
+                                "outcome", key.failed() ? "error" : "success")
+                        .register(registry))
+                .increment();
+    }
+
+    public void recordRepositoryLatency(String tenantName, String repository, String method, boolean failed, long nanos) {
+        RepositoryCall call = new RepositoryCall(tenantName, repository, method, failed);
+        repositoryTimers.computeIfAbsent(call, key -> Timer.builder("tenant.repository.latency")
+                        .tags("tenant", key.tenant(), "repository", key.repository(), "method", key.method(),
+                                "outcome", key.failed() ? "error" : "success")
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Gauge poolGauge(String tenantName, String state, ToIntFunction<HikariPoolMXBean> reading) {
+        return Gauge.builder("tenant.pool.connections", routingDataSource, routing -> read(routing.getTenantDataSource(tenantName), reading))
+                .tags("tenant", tenantName, "state", state)
+                .register(registry);
+    }
+
+    private static double read(DataSource pool, ToIntFunction<HikariPoolMXBean> reading) {
+        if (pool instanceof HikariDataSource hikari && hikari.getHikariPoolMXBean() != null) {
+            return reading.applyAsInt(hikari.getHikariPoolMXBean());
+        }
+        return 0;
+    }
+
+    private record RepositoryCall(String tenant, String repository, String method, boolean failed) {
+    }
+}
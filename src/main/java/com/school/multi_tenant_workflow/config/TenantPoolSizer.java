@@ -0,0 +1,156 @@
+package com.school.multi_tenant_workflow.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resizes each open tenant pool from observed demand instead of a fixed 10 connections.
+ * A pool grows by half when callers queue for a connection, the mean acquire wait over the
+ * last interval is high, or most connections are busy; it shrinks by a quarter only after
+ * several quiet intervals in a row, so a roll-call burst is not undone by one idle tick.
+ * Sizes stay within the tenant's min/max pool size and the node-wide connection budget,
+ * which shrinking quiet schools frees up for busy ones.
+ */
+@Component
+public class TenantPoolSizer {
+
+    private static final Logger log = LoggerFactory.getLogger(TenantPoolSizer.class);
+
+    enum Decision { GROW, SHRINK, HOLD }
+
+    private final TenantRoutingDataSource routingDataSource;
+    private final TenantDataSourceManager manager;
+    private final TenantMetrics tenantMetrics;
+    private final MeterRegistry registry;
+
+    private final boolean enabled;
+    private final double growUtilization;
+    private final double shrinkUtilization;
+    private final long growAcquireWaitNanos;
+    private final int shrinkAfterIntervals;
+
+    private final Map<String, TenantSample> samples = new ConcurrentHashMap<>();
+
+    public TenantPoolSizer(TenantRoutingDataSource routingDataSource,
+                           TenantDataSourceManager manager,
+                           TenantMetrics tenantMetrics,
+                           MeterRegistry registry,
+                           @Value("${tenant.pool.sizing.enabled:true}") boolean enabled,
+                           @Value("${tenant.pool.sizing.grow-utilization:0.8}") double growUtilization,
+                           @Value("${tenant.pool.sizing.shrink-utilization:0.3}") double shrinkUtilization,
+                           @Value("${tenant.pool.sizing.grow-acquire-wait-ms:5}") long growAcquireWaitMillis,
+                           @Value("${tenant.pool.sizing.shrink-after-intervals:6}") int shrinkAfterIntervals) {
+        this.routingDataSource = routingDataSource;
+        this.manager = manager;
+        this.tenantMetrics = tenantMetrics;
+        this.registry = registry;
+        this.enabled = enabled;
+        this.growUtilization = growUtilization;
+        this.shrinkUtilization = shrinkUtilization;
+        this.growAcquireWaitNanos = TimeUnit.MILLISECONDS.toNanos(growAcquireWaitMillis);
+        this.shrinkAfterIntervals = Math.max(1, shrinkAfterIntervals);
+    }
+
+    @Scheduled(fixedDelayString = "${tenant.pool.sizing.interval-ms:10000}")
+    public void resizePools() {
+        if (!enabled) {
+            return;
+        }
+        samples.keySet().retainAll(routingDataSource.getLastAccessTimes().keySet());
+        for (String tenantName : routingDataSource.getLastAccessTimes().keySet()) {
+            try {
+                resize(tenantName);
+            } catch (RuntimeException e) {
+                log.warn("Pool sizing failed for tenant {}: {}", tenantName, e.getMessage());
+            }
+        }
+    }
+
+    private void resize(String tenantName) {
+        if (!(routingDataSource.getTenantDataSource(tenantName) instanceof HikariDataSource hikari)
+                || hikari.getHikariPoolMXBean() == null) {
+            return;
+        }
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        int size = hikari.getMaximumPoolSize();
+        double utilization = (double) pool.getActiveConnections() / size;
+        int pending = pool.getThreadsAwaitingConnection();
+
+        TenantSample sample = samples.computeIfAbsent(tenantName, name -> new TenantSample());
+        long meanAcquireWait = sample.meanAcquireWaitSince(tenantMetrics.getAcquireTimer(tenantName));
+
+        Decision decision = decide(utilization, pending, meanAcquireWait, sample);
+        if (decision == Decision.HOLD) {
+            return;
+        }
+        int requested = decision == Decision.GROW
+                ? size + Math.max(1, size / 2)
+                : size - Math.max(1, size / 4);
+        int applied = manager.resizePool(tenantName, requested);
+        if (applied < 0 || applied == size) {
+            if (decision == Decision.GROW && applied == size) {
+                // At the tenant's max or out of node-wide budget
+                counter("tenant.pool.resize.capped", tenantName, decision).increment();
+            }
+            return;
+        }
+        sample.quietIntervals = 0;
+        counter("tenant.pool.resizes", tenantName, decision).increment();
+        log.debug("Resized pool for tenant {} from {} to {} (utilization {}, pending {}, acquire wait {} us)",
+                tenantName, size, applied, String.format("%.2f", utilization), pending,
+                TimeUnit.NANOSECONDS.toMicros(meanAcquireWait));
+    }
+
+    Decision decide(double utilization, int pending, long meanAcquireWaitNanos, TenantSample sample) {
+        if (pending > 0 || meanAcquireWaitNanos > growAcquireWaitNanos || utilization >= growUtilization) {
+            sample.quietIntervals = 0;
+            return Decision.GROW;
+        }
+        if (utilization <= shrinkUtilization) {
+            return ++sample.quietIntervals >= shrinkAfterIntervals ? Decision.SHRINK : Decision.HOLD;
+        }
+        sample.quietIntervals = 0;
+        return Decision.HOLD;
+    }
+
+    private Counter counter(String name, String tenantName, Decision decision) {
+        return Counter.builder(name)
+                .tags("tenant", tenantName, "direction", decision.name().toLowerCase())
+                .register(registry);
+    }
+
+    /**
+     * Per-tenant state carried between intervals: the acquire timer totals at the last tick
+     * (to turn the cumulative timer into a per-interval mean) and the run of quiet intervals.
+     */
+    static final class TenantSample {
+        private long lastCount;
+        private double lastTotalNanos;
+        int quietIntervals;
+
+        long meanAcquireWaitSince(Timer acquireTimer) {
+            if (acquireTimer == null) {
+                return 0;
+            }
+            long count = acquireTimer.count();
+            double total = acquireTimer.totalTime(TimeUnit.NANOSECONDS);
+            long acquires = count - lastCount;
+            double waited = total - lastTotalNanos;
+            lastCount = count;
+            lastTotalNanos = total;
+            return acquires > 0 ? (long) (waited / acquires) : 0;
+        }
+    }
+}
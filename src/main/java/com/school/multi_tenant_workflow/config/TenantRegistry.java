@@ -0,0 +1,125 @@
+package com.school.multi_tenant_workflow.config;
+
+import com.school.multi_tenant_workflow.model.TenantConfig;
+import com.school.multi_tenant_workflow.repository.TenantRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory copy of tenant_config so request handling never reads the Master DB.
+ * Lookups by id and by name are O(1) against an immutable snapshot that is swapped atomically.
+ * The snapshot is reloaded only when tenant_registry_version changes: this node bumps it when
+ * it saves a tenant, and a cheap single-row poll picks up changes made by other nodes.
+ */
+@Component
+public class TenantRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(TenantRegistry.class);
+
+    private record Snapshot(long version, List<TenantConfig> all, Map<Long, TenantConfig> byId,
+                            Map<String, TenantConfig> byName) {
+        static final Snapshot EMPTY = new Snapshot(-1, List.of(), Map.of(), Map.of());
+    }
+
+    private final TenantRepository tenantRepository;
+    private final TenantDataSourceManager tenantDataSourceManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public TenantRegistry(TenantRepository tenantRepository,
+                          TenantDataSourceManager tenantDataSourceManager,
+                          JdbcTemplate jdbcTemplate) {
+        this.tenantRepository = tenantRepository;
+        this.tenantDataSourceManager = tenantDataSourceManager;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<TenantConfig> findAll() {
+        return snapshot.all();
+    }
+
+    public Optional<TenantConfig> findById(Long id) {
+        return Optional.ofNullable(snapshot.byId().get(id));
+    }
+
+    public Optional<TenantConfig> findByName(String name) {
+        return Optional.ofNullable(snapshot.byName().get(name));
+    }
+
+    public long getVersion() {
+        return snapshot.version();
+    }
+
+    /**
+     * Reloads tenant_config from the Master DB and syncs the DataSource manager:
+     * new tenants are registered, changed ones have their pools retired, removed ones dropped.
+     * Must run without a tenant bound so the queries hit the Master DB.
+     */
+    public synchronized List<TenantConfig> reload() {
+        long version = readVersion();
+        List<TenantConfig> tenants = tenantRepository.findAll().stream()
+                .sorted(Comparator.comparing(TenantConfig::getName, Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
+
+        Set<String> previousNames = new HashSet<>(snapshot.byName().keySet());
+        for (TenantConfig tenant : tenants) {
+            try {
+                tenantDataSourceManager.registerTenant(tenant);
+            } catch (Exception e) {
+                log.error("Failed to register tenant {}: {}", tenant.getName(), e.getMessage());
+            }
+            previousNames.remove(tenant.getName());
+        }
+        previousNames.forEach(tenantDataSourceManager::removeTenant);
+
+        snapshot = new Snapshot(version, tenants, index(tenants, TenantConfig::getId), index(tenants, TenantConfig::getName));
+        log.debug("Tenant registry loaded at version {} with {} tenants", version, tenants.size());
+        return tenants;
+    }
+
+    /**
+     * Called after this node saves a tenant: bumps the shared version so other nodes reload,
+     * and reloads locally right away.
+     */
+    public void invalidate() {
+        jdbcTemplate.update("UPDATE tenant_registry_version SET version = version + 1 WHERE id = 1");
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${tenant.registry.poll-interval-ms:10000}",
+            initialDelayString = "${tenant.registry.poll-interval-ms:10000}")
+    public void pollForChanges() {
+        try {
+            if (readVersion() != snapshot.version()) {
+                reload();
+            }
+        } catch (Exception e) {
+            log.warn("Tenant registry poll failed: {}", e.getMessage());
+        }
+    }
+
+    private long readVersion() {
+        Long version = jdbcTemplate.queryForObject("SELECT version FROM tenant_registry_version WHERE id = 1", Long.class);
+        return version != null ? version : 0L;
+    }
+
+    private static <K> Map<K, TenantConfig> index(Collection<TenantConfig> tenants, Function<TenantConfig, K> key) {
+        return tenants.stream()
+                .filter(tenant -> key.apply(tenant) != null)
+                .collect(Collectors.toUnmodifiableMap(key, Function.identity(), (first, second) -> second));
+    }
+}
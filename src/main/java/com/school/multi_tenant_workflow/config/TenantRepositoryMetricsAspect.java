@@ -0,0 +1,61 @@
+package com.school.multi_tenant_workflow.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts and (sampled) times every repository call, tagged with the tenant it ran for.
+ * Covers both Spring Data repositories and the JdbcTemplate-based @Repository classes.
+ */
+@Aspect
+@Component
+public class TenantRepositoryMetricsAspect {
+
+    private static final String APP_PACKAGE = "com.school.multi_tenant_workflow";
+
+    private final TenantMetrics tenantMetrics;
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    public TenantRepositoryMetricsAspect(TenantMetrics tenantMetrics) {
+        this.tenantMetrics = tenantMetrics;
+    }
+
+    @Around("within(com.school.multi_tenant_workflow..*) && @within(org.springframework.stereotype.Repository)"
+            + " || target(org.springframework.data.repository.Repository)")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        String tenant = TenantContext.getCurrentTenant();
+        tenant = tenant != null ? tenant : TenantMetrics.NO_TENANT;
+        String repository = repositoryNames.computeIfAbsent(joinPoint.getThis().getClass(), TenantRepositoryMetricsAspect::repositoryName);
+        String method = joinPoint.getSignature().getName();
+
+        boolean sampled = tenantMetrics.shouldSample();
+        long started = sampled ? System.nanoTime() : 0L;
+        boolean failed = true;
+        try {
+            Object result = joinPoint.proceed();
+            failed = false;
+            return result;
+        } finally {
+            tenantMetrics.countRepositoryCall(tenant, repository, method, failed);
+            if (sampled) {
+                tenantMetrics.recordRepositoryLatency(tenant, repository, method, failed, System.nanoTime() - started);
+            }
+        }
+    }
+
+    // Spring Data proxies expose the repository only through the interface they implement
+    private static String repositoryName(Class<?> proxyClass) {
+        return Arrays.stream(ClassUtils.getAllInterfacesForClass(proxyClass))
+                .filter(type -> type.getName().startsWith(APP_PACKAGE))
+                .map(Class::getSimpleName)
+                .findFirst()
+                .orElseGet(() -> ClassUtils.getUserClass(proxyClass).getSimpleName());
+    }
+}
@@ -0,0 +1,30 @@
+package com.school.multi_tenant_workflow.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * Works out which tenant an HTTP request is for, outside the controllers: the school
+ * selected in the session, or a {@code ?tenant=} parameter (reports, exports) when it names
+ * a registered tenant. Unknown names are ignored so callers can key state and metric tags
+ * on the result without letting arbitrary input grow them.
+ */
+final class TenantRequests {
+
+    static final String SESSION_TENANT = "CURRENT_TENANT_NAME";
+
+    private TenantRequests() {
+    }
+
+    static String tenantOf(HttpServletRequest request, TenantRegistry tenantRegistry) {
+        HttpSession session = request.getSession(false);
+        if (session != null && session.getAttribute(SESSION_TENANT) instanceof String tenant) {
+            return tenant;
+        }
+        String requested = request.getParameter("tenant");
+        if (requested != null && tenantRegistry.findByName(requested).isPresent()) {
+            return requested;
+        }
+        return null;
+    }
+}
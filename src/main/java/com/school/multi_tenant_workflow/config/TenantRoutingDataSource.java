@@ -1,10 +1,304 @@
 package com.school.multi_tenant_workflow.config;
 
-import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Routes each connection request to the pool of the tenant in {@link TenantContext}.
+ * Unlike AbstractRoutingDataSource the routing table is never rebuilt: tenants are
+ * added and removed one entry at a time, and lookups never block on writers.
+ * An optional {@link HealthGuard} sees every tenant checkout and can refuse tenants whose
+ * database is known to be down before a thread is parked in the pool's connection timeout.
+ * Tenants may also have read replicas: {@link #getReadOnlyDataSource()} spreads read-only
+ * work over them round-robin, skipping replicas that recently failed, and falls back to the
+ * primary when none is usable or the caller's session wrote within the read-your-writes window.
+ */
+public class TenantRoutingDataSource extends AbstractDataSource {
+
+    private final Map<String, TenantTarget> tenantTable = new ConcurrentHashMap<>();
+
+    private volatile DataSource defaultTargetDataSource;
+
+    // Opens the pool for a registered tenant on a table miss; null means "not a known tenant"
+    private volatile Function<String, DataSource> tenantActivator;
+
+    // Told how long each tenant connection took to borrow, in nanoseconds
+    private volatile ObjLongConsumer<String> acquireListener;
+
+    // Per-tenant circuit breaker consulted before, and told the outcome of, each tenant checkout
+    private volatile HealthGuard healthGuard;
+
+    // Reads go to the primary for this long after the session's last write checkout; 0 disables
+    private volatile long readYourWritesMillis;
+    // How long a replica that failed a checkout is skipped before it is tried again
+    private volatile long replicaRetryMillis = 30_000;
+
+    private final AtomicLong replicaReads = new AtomicLong();
+    private final AtomicLong primaryReads = new AtomicLong();
+    private final AtomicLong replicaFailures = new AtomicLong();
+
+    private final DataSource readOnlyDataSource = new AbstractDataSource() {
+        @Override
+        public Connection getConnection() throws SQLException {
+            return getReadOnlyConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return TenantRoutingDataSource.this.getConnection(username, password);
+        }
+    };
+
+    public void setDefaultTargetDataSource(DataSource defaultTargetDataSource) {
+        this.defaultTargetDataSource = defaultTargetDataSource;
+    }
+
+    public void setTenantActivator(Function<String, DataSource> tenantActivator) {
+        this.tenantActivator = tenantActivator;
+    }
+
+    public void setAcquireListener(ObjLongConsumer<String> acquireListener) {
+        this.acquireListener = acquireListener;
+    }
+
+    public void setHealthGuard(HealthGuard healthGuard) {
+        this.healthGuard = healthGuard;
+    }
+
+    public void setReadYourWritesMillis(long readYourWritesMillis) {
+        this.readYourWritesMillis = readYourWritesMillis;
+    }
+
+    public void setReplicaRetryMillis(long replicaRetryMillis) {
+        this.replicaRetryMillis = replicaRetryMillis;
+    }
+
+    public void putTenantDataSource(String tenantName, DataSource dataSource) {
+        putTenantDataSource(tenantName, dataSource, List.of());
+    }
+
+    public void putTenantDataSource(String tenantName, DataSource dataSource, List<? extends DataSource> replicas) {
+        tenantTable.put(tenantName, new TenantTarget(dataSource, replicas));
+    }
+
+    public DataSource removeTenantDataSource(String tenantName) {
+        TenantTarget removed = tenantTable.remove(tenantName);
+        return removed != null ? removed.dataSource : null;
+    }
+
+    public DataSource getTenantDataSource(String tenantName) {
+        TenantTarget target = tenantTable.get(tenantName);
+        return target != null ? target.dataSource : null;
+    }
+
+    public int getTenantCount() {
+        return tenantTable.size();
+    }
+
+    /**
+     * Snapshot of the last time each tenant was routed to, used for LRU eviction.
+     */
+    public Map<String, Long> getLastAccessTimes() {
+        return tenantTable.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().lastAccess));
+    }
+
+    /**
+     * The view for read-only work, e.g. the read-only target of a LazyConnectionDataSourceProxy,
+     * which picks it once a transaction has marked its connection read-only.
+     */
+    public DataSource getReadOnlyDataSource() {
+        return readOnlyDataSource;
+    }
+
+    public Map<String, Long> getReplicaStatistics() {
+        return Map.of("replicaReads", replicaReads.get(),
+                "primaryReads", primaryReads.get(),
+                "replicaFailures", replicaFailures.get());
+    }
+
+    private Connection getReadOnlyConnection() throws SQLException {
+        String tenantName = TenantContext.getCurrentTenant();
+        TenantTarget target = tenantName != null ? tenantTable.get(tenantName) : null;
+        Function<String, DataSource> activator = this.tenantActivator;
+        if (target == null && tenantName != null && activator != null && activator.apply(tenantName) != null) {
+            // First use of the tenant: its replicas open together with its primary
+            target = tenantTable.get(tenantName);
+        }
+        if (target == null || target.replicas.isEmpty()) {
+            return getConnection(tenantName, false);
+        }
+        long now = System.currentTimeMillis();
+        AtomicLong stamp = TenantContext.getWriteStamp();
+        if (stamp != null && now - stamp.get() < readYourWritesMillis) {
+            primaryReads.incrementAndGet();
+            return getConnection(tenantName, false);
+        }
+
+        int count = target.replicas.size();
+        int start = Math.floorMod(target.nextReplica.getAndIncrement(), count);
+        for (int i = 0; i < count; i++) {
+            Replica replica = target.replicas.get((start + i) % count);
+            if (replica.skipUntil > now) {
+                continue;
+            }
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                target.lastAccess = now;
+                replicaReads.incrementAndGet();
+                return connection;
+            } catch (SQLException e) {
+                replicaFailures.incrementAndGet();
+                replica.skipUntil = System.currentTimeMillis() + replicaRetryMillis;
+            }
+        }
+        primaryReads.incrementAndGet();
+        return getConnection(tenantName, false);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(TenantContext.getCurrentTenant(), true);
+    }
+
+    private Connection getConnection(String tenantName, boolean mayWrite) throws SQLException {
+        if (tenantName == null) {
+            return determineTargetDataSource().getConnection();
+        }
+        HealthGuard guard = this.healthGuard;
+        if (guard != null && !guard.allowRequest(tenantName)) {
+            throw new SQLTransientConnectionException("Database for tenant " + tenantName + " is unavailable (circuit open)");
+        }
+
+        ObjLongConsumer<String> listener = this.acquireListener;
+        long started = System.nanoTime();
+        Connection connection;
+        try {
+            connection = borrow(determineTargetDataSource());
+        } catch (SQLException | RuntimeException e) {
+            if (guard != null) {
+                guard.recordFailure(tenantName, e);
+            }
+            throw e;
+        }
+        if (guard != null) {
+            guard.recordSuccess(tenantName);
+        }
+        AtomicLong stamp = TenantContext.getWriteStamp();
+        if (mayWrite && readYourWritesMillis > 0 && stamp != null) {
+            TenantTarget target = tenantTable.get(tenantName);
+            if (target != null && !target.replicas.isEmpty()) {
+                stamp.set(System.currentTimeMillis());
+            }
+        }
+        if (listener != null) {
+            listener.accept(tenantName, System.nanoTime() - started);
+        }
+        return connection;
+    }
+
+    /**
+     * Lookups are lock-free, so a pool can be evicted or swapped out between being looked up
+     * and being borrowed from. When the borrow fails and the tenant now routes elsewhere, the
+     * failure was the retired pool closing, not the database: borrow once from the current route.
+     */
+    private Connection borrow(DataSource target) throws SQLException {
+        try {
+            return target.getConnection();
+        } catch (SQLException e) {
+            DataSource current = determineTargetDataSource();
+            if (current == target) {
+                throw e;
+            }
+            return current.getConnection();
+        }
+    }
 
-public class TenantRoutingDataSource extends AbstractRoutingDataSource {
     @Override
-    protected Object determineCurrentLookupKey() {
-        return TenantContext.getCurrentTenant();
+    public Connection getConnection(String username, String password) throws SQLException {
+        return determineTargetDataSource().getConnection(username, password);
+    }
+
+    protected DataSource determineTargetDataSource() {
+        String tenantName = TenantContext.getCurrentTenant();
+        if (tenantName != null) {
+            TenantTarget target = tenantTable.get(tenantName);
+            if (target != null) {
+                target.lastAccess = System.currentTimeMillis();
+                return target.dataSource;
+            }
+
+            Function<String, DataSource> activator = this.tenantActivator;
+            if (activator != null) {
+                DataSource activated = activator.apply(tenantName);
+                if (activated != null) {
+                    return activated;
+                }
+            }
+        }
+
+        DataSource fallback = this.defaultTargetDataSource;
+        if (fallback == null) {
+            throw new IllegalStateException("Cannot determine target DataSource for tenant [" + tenantName + "]");
+        }
+        return fallback;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return (T) this;
+        }
+        return determineTargetDataSource().unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || determineTargetDataSource().isWrapperFor(iface);
+    }
+
+    /**
+     * Decides whether a tenant may be routed to and learns from each checkout's outcome.
+     */
+    public interface HealthGuard {
+        boolean allowRequest(String tenantName);
+
+        void recordSuccess(String tenantName);
+
+        void recordFailure(String tenantName, Exception failure);
+    }
+
+    private static final class TenantTarget {
+        private final DataSource dataSource;
+        private final List<Replica> replicas;
+        private final AtomicInteger nextReplica = new AtomicInteger();
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private TenantTarget(DataSource dataSource, List<? extends DataSource> replicas) {
+            this.dataSource = dataSource;
+            this.replicas = replicas.stream().map(Replica::new).toList();
+        }
+    }
+
+    private static final class Replica {
+        private final DataSource dataSource;
+        private volatile long skipUntil;
+
+        private Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+package com.school.multi_tenant_workflow.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Routing target for a tenant that lives in its own schema of a shared database.
+ * Every checkout borrows from the shared pool and points the connection at the tenant's
+ * schema before handing it out, so unqualified table names resolve to that tenant.
+ * The schema is set on every checkout rather than reset on return, so a connection last
+ * used by another tenant can never carry that tenant's schema into this one.
+ */
+public class TenantSchemaDataSource extends DelegatingDataSource {
+
+    // Schema names end up in DDL, so only plain lower-case identifiers are accepted;
+    // that also keeps PostgreSQL's case folding from changing the name under us
+    private static final Pattern SCHEMA_NAME = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+
+    private final String schemaName;
+    private final String driverClass;
+
+    public TenantSchemaDataSource(DataSource sharedPool, String schemaName, String driverClass) {
+        super(sharedPool);
+        this.schemaName = requireValidSchemaName(schemaName);
+        this.driverClass = driverClass;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return selectSchema(super.getConnection(), schemaName, driverClass);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return selectSchema(super.getConnection(username, password), schemaName, driverClass);
+    }
+
+    public String getSchemaName() {
+        return schemaName;
+    }
+
+    /**
+     * Points a freshly borrowed connection at the tenant's schema. MySQL and MariaDB have no
+     * schemas inside a database, so there the tenant's "schema" is a database on the shared
+     * server and is selected as the catalog; PostgreSQL and H2 switch the current schema.
+     */
+    public static Connection selectSchema(Connection connection, String schemaName, String driverClass) throws SQLException {
+        try {
+            if (usesCatalogAsSchema(driverClass)) {
+                connection.setCatalog(schemaName);
+            } else if (connection.getMetaData().storesUpperCaseIdentifiers()) {
+                // setSchema takes the stored name; the unquoted DDL name was folded (H2)
+                connection.setSchema(schemaName.toUpperCase(Locale.ROOT));
+            } else {
+                connection.setSchema(schemaName);
+            }
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    public static boolean usesCatalogAsSchema(String driverClass) {
+        String driver = driverClass == null ? "" : driverClass.toLowerCase();
+        return driver.contains("mysql") || driver.contains("mariadb");
+    }
+
+    public static String requireValidSchemaName(String schemaName) {
+        if (schemaName == null || !SCHEMA_NAME.matcher(schemaName).matches()) {
+            throw new IllegalArgumentException("Invalid tenant schema name: " + schemaName);
+        }
+        return schemaName;
+    }
+}
@@ -0,0 +1,27 @@
+package com.school.multi_tenant_workflow.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds a tenant tag to {@code http.server.requests}, so request latency can be broken down
+ * by school and endpoint. Requests not tied to a registered tenant are tagged "none".
+ */
+@Component
+public class TenantServerRequestObservationConvention extends DefaultServerRequestObservationConvention {
+
+    private final TenantRegistry tenantRegistry;
+
+    public TenantServerRequestObservationConvention(TenantRegistry tenantRegistry) {
+        this.tenantRegistry = tenantRegistry;
+    }
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        String tenant = TenantRequests.tenantOf(context.getCarrier(), tenantRegistry);
+        return super.getLowCardinalityKeyValues(context).and(KeyValue.of("tenant", tenant != null ? tenant : "none"));
+    }
+}
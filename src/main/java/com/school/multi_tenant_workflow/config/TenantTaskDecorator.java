@@ -0,0 +1,17 @@
+package com.school.multi_tenant_workflow.config;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Propagates the tenant into @Async methods and anything else run on Spring's
+ * auto-configured task executor, which picks up a TaskDecorator bean by itself.
+ */
+@Component
+public class TenantTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return TenantContext.wrap(runnable);
+    }
+}
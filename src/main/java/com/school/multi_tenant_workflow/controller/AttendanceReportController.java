@@ -0,0 +1,85 @@
+package com.school.multi_tenant_workflow.controller;
+
+import com.school.multi_tenant_workflow.config.TenantContext;
+import com.school.multi_tenant_workflow.config.TenantRegistry;
+import com.school.multi_tenant_workflow.dto.DailyAttendanceTotals;
+import com.school.multi_tenant_workflow.dto.StudentAttendanceSummary;
+import com.school.multi_tenant_workflow.repository.AttendanceRollupRepository;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Attendance reports for principals, served from the rollup tables.
+ * The tenant comes from the session, or from ?tenant= for scripted access; a name that is not
+ * a registered tenant gets 404 rather than falling through to the Master DB.
+ */
+@RestController
+@RequestMapping("/reports/attendance")
+public class AttendanceReportController {
+
+    private final AttendanceRollupRepository rollupRepository;
+    private final TenantRegistry tenantRegistry;
+
+    public AttendanceReportController(AttendanceRollupRepository rollupRepository, TenantRegistry tenantRegistry) {
+        this.rollupRepository = rollupRepository;
+        this.tenantRegistry = tenantRegistry;
+    }
+
+    /**
+     * Per-student totals for a month range, e.g. ?from=2026-06&to=2026-09 for a term.
+     */
+    @GetMapping("/students")
+    public ResponseEntity<List<StudentAttendanceSummary>> byStudent(
+            @RequestParam("from") @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to,
+            @RequestParam(value = "tenant", required = false) String tenantParam,
+            HttpSession session) {
+        String tenant = tenantParam != null ? tenantParam : (String) session.getAttribute("CURRENT_TENANT_NAME");
+        if (tenant == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        if (tenantRegistry.findByName(tenant).isEmpty()) return ResponseEntity.notFound().build();
+
+        return TenantContext.callWithTenant(tenant,
+                () -> ResponseEntity.ok(rollupRepository.summarizeByStudent(from, to != null ? to : from)));
+    }
+
+    @GetMapping("/daily")
+    public ResponseEntity<List<DailyAttendanceTotals>> daily(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "tenant", required = false) String tenantParam,
+            HttpSession session) {
+        String tenant = tenantParam != null ? tenantParam : (String) session.getAttribute("CURRENT_TENANT_NAME");
+        if (tenant == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        if (tenantRegistry.findByName(tenant).isEmpty()) return ResponseEntity.notFound().build();
+
+        return TenantContext.callWithTenant(tenant,
+                () -> ResponseEntity.ok(rollupRepository.dailyTotals(from, to != null ? to : from)));
+    }
+
+    /**
+     * Recomputes the rollups from attendance_records (backfill or repair).
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuild(
+            @RequestParam(value = "tenant", required = false) String tenantParam,
+            HttpSession session) {
+        String tenant = tenantParam != null ? tenantParam : (String) session.getAttribute("CURRENT_TENANT_NAME");
+        if (tenant == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        if (tenantRegistry.findByName(tenant).isEmpty()) return ResponseEntity.notFound().build();
+
+        return TenantContext.callWithTenant(tenant, () -> {
+            long started = System.nanoTime();
+            rollupRepository.rebuild();
+            long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+            return ResponseEntity.ok(Map.of("tenant", tenant, "rebuilt", true, "millis", elapsedMillis));
+        });
+    }
+}
@@ -0,0 +1,66 @@
+package com.school.multi_tenant_workflow.controller;
+
+import com.school.multi_tenant_workflow.dto.DistrictDashboard;
+import com.school.multi_tenant_workflow.dto.SchoolAttendanceSnapshot;
+import com.school.multi_tenant_workflow.service.TenantScatterGatherService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+/**
+ * Cross-school views for the district office, answered by querying every tenant in parallel.
+ */
+@RestController
+@RequestMapping("/district")
+public class DistrictController {
+
+    private final TenantScatterGatherService scatterGatherService;
+
+    public DistrictController(TenantScatterGatherService scatterGatherService) {
+        this.scatterGatherService = scatterGatherService;
+    }
+
+    @GetMapping("/dashboard")
+    public TenantScatterGatherService.Result<DistrictDashboard> dashboard(
+            @RequestParam(value = "date", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        LocalDate day = date != null ? date : LocalDate.now();
+        DistrictDashboard dashboard = new DistrictDashboard();
+        dashboard.setDate(day);
+
+        return scatterGatherService.scatterGather(
+                (tenant, connection) -> snapshot(connection, day),
+                dashboard,
+                DistrictDashboard::add);
+    }
+
+    private SchoolAttendanceSnapshot snapshot(Connection connection, LocalDate day) throws SQLException {
+        long students;
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM students")) {
+            rs.next();
+            students = rs.getLong(1);
+        }
+
+        // Read from the daily rollup: one primary-key lookup instead of a scan of the day's records
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT present_count, absent_count, od_count FROM attendance_daily_totals WHERE date = ?")) {
+            ps.setDate(1, Date.valueOf(day));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return new SchoolAttendanceSnapshot(students, false, 0, 0, 0);
+                }
+                return new SchoolAttendanceSnapshot(students, true, rs.getLong(1), rs.getLong(2), rs.getLong(3));
+            }
+        }
+    }
+}
@@ -1,52 +1,106 @@
 package com.school.multi_tenant_workflow.controller;
 
+import com.school.multi_tenant_workflow.dto.AttendanceEntry;
+import com.school.multi_tenant_workflow.dto.BulkAttendanceRequest;
+import com.school.multi_tenant_workflow.dto.StudentPage;
 import com.school.multi_tenant_workflow.model.AttendanceRecord;
+import com.school.multi_tenant_workflow.model.ProvisioningJob;
 import com.school.multi_tenant_workflow.model.Student;
 import com.school.multi_tenant_workflow.model.TenantConfig;
+import com.school.multi_tenant_workflow.repository.AttendanceBatchWriter;
 import com.school.multi_tenant_workflow.repository.AttendanceRepository;
 import com.school.multi_tenant_workflow.repository.StudentRepository;
-import com.school.multi_tenant_workflow.repository.TenantRepository;
+import com.school.multi_tenant_workflow.service.AttendanceJournal;
 import com.school.multi_tenant_workflow.service.LiquibaseService;
+import com.school.multi_tenant_workflow.service.MigrationOrchestrator;
+import com.school.multi_tenant_workflow.service.ProvisioningService;
+import com.school.multi_tenant_workflow.service.TenantExportService;
+import com.school.multi_tenant_workflow.config.TenantCache;
 import com.school.multi_tenant_workflow.config.TenantContext;
 import com.school.multi_tenant_workflow.config.TenantDataSourceManager;
+import com.school.multi_tenant_workflow.config.TenantHealthMonitor;
+import com.school.multi_tenant_workflow.config.TenantLoader;
+import com.school.multi_tenant_workflow.config.TenantRegistry;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 @Controller
 public class TenantController {
 
-    private final TenantRepository tenantRepository;
+    private static final String STUDENT_PAGES = "studentPages";
+
+    private final TenantRegistry tenantRegistry;
     private final LiquibaseService liquibaseService;
     private final StudentRepository studentRepository;
     private final AttendanceRepository attendanceRepository;
+    private final AttendanceBatchWriter attendanceBatchWriter;
+    private final AttendanceJournal attendanceJournal;
     private final TenantDataSourceManager tenantDataSourceManager;
+    private final MigrationOrchestrator migrationOrchestrator;
+    private final ProvisioningService provisioningService;
+    private final TenantLoader tenantLoader;
+    private final TenantHealthMonitor tenantHealthMonitor;
+    private final TenantExportService tenantExportService;
+    private final TenantCache tenantCache;
+    private final int studentPageSize;
 
-    public TenantController(TenantRepository tenantRepository,
+    public TenantController(TenantRegistry tenantRegistry,
                             LiquibaseService liquibaseService,
                             StudentRepository studentRepository,
                             AttendanceRepository attendanceRepository,
-                            TenantDataSourceManager tenantDataSourceManager) {
-        this.tenantRepository = tenantRepository;
+                            AttendanceBatchWriter attendanceBatchWriter,
+                            AttendanceJournal attendanceJournal,
+                            TenantDataSourceManager tenantDataSourceManager,
+                            MigrationOrchestrator migrationOrchestrator,
+                            ProvisioningService provisioningService,
+                            TenantLoader tenantLoader,
+                            TenantHealthMonitor tenantHealthMonitor,
+                            TenantExportService tenantExportService,
+                            TenantCache tenantCache,
+                            @Value("${students.page-size:100}") int studentPageSize) {
+        this.tenantRegistry = tenantRegistry;
         this.liquibaseService = liquibaseService;
         this.studentRepository = studentRepository;
         this.attendanceRepository = attendanceRepository;
+        this.attendanceBatchWriter = attendanceBatchWriter;
+        this.attendanceJournal = attendanceJournal;
         this.tenantDataSourceManager = tenantDataSourceManager;
+        this.migrationOrchestrator = migrationOrchestrator;
+        this.provisioningService = provisioningService;
+        this.tenantLoader = tenantLoader;
+        this.tenantHealthMonitor = tenantHealthMonitor;
+        this.tenantExportService = tenantExportService;
+        this.tenantCache = tenantCache;
+        this.studentPageSize = studentPageSize;
     }
 
     @GetMapping("/")
     public String index(Model model) {
-        // Force context clear to ensure we read the tenant list from Master DB
         TenantContext.clear();
-        model.addAttribute("tenants", tenantRepository.findAll());
+        // Served from the in-memory registry; no Master DB round trip per page view
+        model.addAttribute("tenants", tenantRegistry.findAll());
         model.addAttribute("tenantConfig", new TenantConfig());
         return "index";
     }
@@ -54,68 +108,87 @@ public class TenantController {
     @PostMapping("/provision")
     public String provision(@ModelAttribute TenantConfig config) {
         try {
-            // Master DB must be active to save the new config
+            // Master DB must be active to record the job
             TenantContext.clear();
 
-            liquibaseService.runMigration(
-                    config.getUrl(),
-                    config.getUsername(),
-                    config.getPassword(),
-                    config.getDriverClass()
-            );
-
-            tenantRepository.save(config);
-            tenantDataSourceManager.addTenant(config);
-
-            return "redirect:/?success=Provisioned";
+            // Database creation and migration run in the background; the tenant shows up once its job is DONE
+            String batchId = provisioningService.submit(List.of(config));
+            return "redirect:/?success=Provisioning+queued&batch=" + batchId;
         } catch (Exception e) {
             String errorMsg = URLEncoder.encode(e.getMessage(), StandardCharsets.UTF_8);
             return "redirect:/?error=" + errorMsg;
         }
     }
 
+    @PostMapping("/api/provisioning/jobs")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> submitProvisioningJobs(@RequestBody List<TenantConfig> configs) {
+        TenantContext.clear();
+        try {
+            String batchId = provisioningService.submit(configs);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(provisioningService.getBatchProgress(batchId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/api/provisioning/jobs/{jobId}")
+    @ResponseBody
+    public ResponseEntity<ProvisioningJob> provisioningJob(@PathVariable Long jobId) {
+        TenantContext.clear();
+        return ResponseEntity.of(provisioningService.getJob(jobId));
+    }
+
+    @GetMapping("/api/provisioning/batches/{batchId}")
+    @ResponseBody
+    public Map<String, Object> provisioningBatch(@PathVariable String batchId) {
+        TenantContext.clear();
+        return provisioningService.getBatchProgress(batchId);
+    }
+
     @PostMapping("/select-tenant")
     public String selectTenant(@RequestParam("tenantId") Long id, HttpSession session) {
-        // CRITICAL: Clear context so we look for tenant_config in the Master MySQL DB
+        // CRITICAL: Clear context so migrations and registry refreshes run against the Master DB
         TenantContext.clear();
 
-        TenantConfig config = tenantRepository.findById(id)
+        TenantConfig config = tenantRegistry.findById(id)
                 .orElseThrow(() -> new RuntimeException("Tenant not found"));
 
         tenantDataSourceManager.addTenant(config);
 
-        // Auto-patch the school DB (MySQL or Postgres) with new tables like attendance
+        // Auto-patch the school DB (MySQL or Postgres) with new tables like attendance.
+        // This is a cheap cache check unless master.xml changed since the last migration.
         try {
             liquibaseService.runMigration(
                     config.getUrl(),
                     config.getUsername(),
                     config.getPassword(),
-                    config.getDriverClass()
+                    config.getDriverClass(),
+                    config.getSchemaName()
             );
         } catch (Exception e) {
             System.err.println("Auto-patch failed: " + e.getMessage());
         }
 
-        // Now set the context for the workspace
-        TenantContext.setCurrentTenant(config.getName());
+        // The workspace binds the tenant per request from the session; nothing is left on this thread
         session.setAttribute("CURRENT_TENANT_NAME", config.getName());
 
         return "redirect:/workspace";
     }
 
     @GetMapping("/workspace")
-    public String workspace(Model model, HttpSession session) {
+    public String workspace(Model model, HttpSession session,
+                            @RequestParam(value = "after", required = false) Long afterId,
+                            @RequestParam(value = "afterName", required = false) String afterName,
+                            @RequestParam(value = "sort", defaultValue = "id") String sort) {
         String tenant = (String) session.getAttribute("CURRENT_TENANT_NAME");
         if (tenant == null) return "redirect:/";
 
-        try {
-            TenantContext.setCurrentTenant(tenant);
+        return TenantContext.callWithTenant(tenant, () -> {
             model.addAttribute("activeTenant", tenant);
-            model.addAttribute("students", studentRepository.findAll());
+            addStudentPage(model, afterId, afterName, sort);
             return "workspace";
-        } finally {
-            TenantContext.clear();
-        }
+        });
     }
 
     @PostMapping("/add-student")
@@ -123,29 +196,31 @@ public class TenantController {
         String tenant = (String) session.getAttribute("CURRENT_TENANT_NAME");
         if (tenant == null) return "redirect:/";
 
-        try {
-            TenantContext.setCurrentTenant(tenant);
+        return TenantContext.callWithTenant(tenant, () -> {
+            // students.name is NOT NULL so keyset pages by name see every student
+            if (student.getName() == null) {
+                student.setName("");
+            }
             studentRepository.save(student);
+            tenantCache.invalidate(tenant, STUDENT_PAGES);
             return "redirect:/workspace";
-        } finally {
-            TenantContext.clear();
-        }
+        });
     }
 
     @GetMapping("/attendance")
-    public String showAttendancePage(Model model, HttpSession session) {
+    public String showAttendancePage(Model model, HttpSession session,
+                                     @RequestParam(value = "after", required = false) Long afterId,
+                                     @RequestParam(value = "afterName", required = false) String afterName,
+                                     @RequestParam(value = "sort", defaultValue = "id") String sort) {
         String tenant = (String) session.getAttribute("CURRENT_TENANT_NAME");
         if (tenant == null) return "redirect:/";
 
-        try {
-            TenantContext.setCurrentTenant(tenant);
+        return TenantContext.callWithTenant(tenant, () -> {
             model.addAttribute("activeTenant", tenant);
-            model.addAttribute("students", studentRepository.findAll());
+            addStudentPage(model, afterId, afterName, sort);
             model.addAttribute("today", LocalDate.now());
             return "attendance";
-        } finally {
-            TenantContext.clear();
-        }
+        });
     }
 
     @PostMapping("/submit-attendance")
@@ -153,26 +228,213 @@ public class TenantController {
         String tenant = (String) session.getAttribute("CURRENT_TENANT_NAME");
         if (tenant == null) return "redirect:/";
 
-        try {
-            TenantContext.setCurrentTenant(tenant);
-            List<AttendanceRecord> records = new ArrayList<>();
-            LocalDate today = LocalDate.now();
-
-            allParams.forEach((key, value) -> {
-                if (key.startsWith("status_")) {
-                    Long studentId = Long.parseLong(key.replace("status_", ""));
-                    AttendanceRecord record = new AttendanceRecord();
-                    record.setStudentId(studentId);
-                    record.setStatus(value);
-                    record.setDate(today);
-                    records.add(record);
-                }
-            });
+        // Rejected before it is acknowledged; a bad row in the journal would only fail later in the flusher
+        List<AttendanceRecord> records = parseAttendanceForm(allParams, LocalDate.now());
+
+        return TenantContext.callWithTenant(tenant, () -> {
+            // Write-behind: acknowledged once journaled; the flusher upserts it with the tenant's other pending roll calls
+            if (!attendanceJournal.isEnabled() || !attendanceJournal.append(tenant, records)) {
+                // Multi-row upserts instead of saveAll: one round trip per batch, and resubmits correct rather than duplicate
+                attendanceBatchWriter.upsertAll(records);
+            }
 
-            attendanceRepository.saveAll(records);
+            // The form covers one page of students; continue with the next chunk if there is one
+            String nextAfter = allParams.get("nextAfter");
+            if (nextAfter != null && !nextAfter.isBlank()) {
+                String sort = allParams.getOrDefault("sort", "id");
+                String redirect = "redirect:/attendance?sort=" + URLEncoder.encode(sort, StandardCharsets.UTF_8)
+                        + "&after=" + URLEncoder.encode(nextAfter, StandardCharsets.UTF_8);
+                String nextAfterName = allParams.get("nextAfterName");
+                // An empty name is a valid cursor; dropping it would restart from the first page
+                if (nextAfterName != null) {
+                    redirect += "&afterName=" + URLEncoder.encode(nextAfterName, StandardCharsets.UTF_8);
+                }
+                return redirect;
+            }
             return "redirect:/workspace?success=AttendanceSaved";
-        } finally {
-            TenantContext.clear();
+        });
+    }
+
+    @PostMapping("/api/attendance/bulk")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> submitAttendanceBulk(@RequestBody BulkAttendanceRequest request,
+                                                                    HttpSession session) {
+        String tenant = (String) session.getAttribute("CURRENT_TENANT_NAME");
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "No tenant selected"));
+        }
+        if (request.records() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "records is required"));
+        }
+        // Rejected here rather than failing mid-batch in the driver, or later in the journal flusher
+        for (int i = 0; i < request.records().size(); i++) {
+            AttendanceEntry entry = request.records().get(i);
+            if (entry == null || entry.studentId() == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "records[" + i + "].studentId is required"));
+            }
+            if (entry.status() == null || !AttendanceRecord.STATUSES.contains(entry.status())) {
+                return ResponseEntity.badRequest().body(Map.of("error", "records[" + i + "].status must be Present, Absent or OD"));
+            }
         }
+
+        return TenantContext.callWithTenant(tenant, () -> {
+            LocalDate date = request.date() != null ? request.date() : LocalDate.now();
+            List<AttendanceRecord> records = new ArrayList<>(request.records().size());
+            for (AttendanceEntry entry : request.records()) {
+                records.add(newAttendanceRecord(entry.studentId(), entry.status(), date));
+            }
+
+            long started = System.nanoTime();
+            if (attendanceJournal.isEnabled() && attendanceJournal.append(tenant, records)) {
+                long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+                return ResponseEntity.accepted().body(Map.of("tenant", tenant, "journaled", records.size(), "millis", elapsedMillis));
+            }
+            int saved = attendanceBatchWriter.upsertAll(records);
+            long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+            return ResponseEntity.ok(Map.of("tenant", tenant, "saved", saved, "millis", elapsedMillis));
+        });
+    }
+
+    /**
+     * Streams students or attendance_records as CSV or NDJSON straight to the response.
+     * The tenant comes from the session, or from ?tenant= for scheduled (nightly) exports;
+     * a name that is not a registered tenant gets 404.
+     */
+    @GetMapping("/export/{dataset}")
+    public void export(@PathVariable("dataset") String dataset,
+                       @RequestParam(value = "format", defaultValue = "csv") String format,
+                       @RequestParam(value = "tenant", required = false) String tenantParam,
+                       @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                       @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                       HttpSession session,
+                       HttpServletResponse response) throws IOException {
+        String tenant = tenantParam != null ? tenantParam : (String) session.getAttribute("CURRENT_TENANT_NAME");
+        if (tenant == null) {
+            response.sendError(HttpStatus.UNAUTHORIZED.value(), "No tenant selected");
+            return;
+        }
+        // An unregistered name would route to the Master DB and stream its tables
+        if (tenantRegistry.findByName(tenant).isEmpty()) {
+            response.sendError(HttpStatus.NOT_FOUND.value(), "Unknown tenant");
+            return;
+        }
+
+        TenantExportService.Dataset exportDataset;
+        TenantExportService.Format exportFormat;
+        try {
+            exportDataset = TenantExportService.Dataset.valueOf(dataset.toUpperCase());
+            exportFormat = TenantExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Unknown dataset or format");
+            return;
+        }
+
+        boolean csv = exportFormat == TenantExportService.Format.CSV;
+        response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("Content-Disposition", "attachment; filename=\""
+                + tenant + "-" + exportDataset.name().toLowerCase() + (csv ? ".csv" : ".ndjson") + "\"");
+
+        TenantContext.runWithTenant(tenant, () -> {
+            try {
+                Writer out = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+                tenantExportService.export(exportDataset, exportFormat, from, to, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void addStudentPage(Model model, Long afterId, String afterName, String sort) {
+        boolean byName = "name".equals(sort);
+        // Student lists are read on every page view but rarely change, so pages are cached per tenant
+        StudentPage page = tenantCache.get(STUDENT_PAGES, Arrays.asList(byName, afterId, afterName),
+                () -> loadStudentPage(byName, afterId, afterName));
+
+        model.addAttribute("students", page.students());
+        model.addAttribute("page", page);
+        model.addAttribute("sort", byName ? "name" : "id");
+    }
+
+    private StudentPage loadStudentPage(boolean byName, Long afterId, String afterName) {
+        Limit limit = Limit.of(studentPageSize + 1);
+        if (!byName) {
+            return StudentPage.of(studentRepository.findPageAfterId(afterId != null ? afterId : 0L, limit), studentPageSize);
+        } else if (afterName == null || afterId == null) {
+            return StudentPage.of(studentRepository.findFirstPageByName(limit), studentPageSize);
+        } else {
+            return StudentPage.of(studentRepository.findPageAfterName(afterName, afterId, limit), studentPageSize);
+        }
+    }
+
+    // One status_<studentId> field per student on the attendance form; a malformed field is a 400
+    static List<AttendanceRecord> parseAttendanceForm(Map<String, String> params, LocalDate date) {
+        List<AttendanceRecord> records = new ArrayList<>();
+        params.forEach((key, value) -> {
+            if (key.startsWith("status_")) {
+                Long studentId;
+                try {
+                    studentId = Long.valueOf(key.substring("status_".length()));
+                } catch (NumberFormatException e) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, key + " does not name a student");
+                }
+                if (value == null || !AttendanceRecord.STATUSES.contains(value)) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, key + " must be Present, Absent or OD");
+                }
+                records.add(newAttendanceRecord(studentId, value, date));
+            }
+        });
+        return records;
+    }
+
+    private static AttendanceRecord newAttendanceRecord(Long studentId, String status, LocalDate date) {
+        AttendanceRecord record = new AttendanceRecord();
+        record.setStudentId(studentId);
+        record.setStatus(status);
+        record.setDate(date);
+        return record;
+    }
+
+    @GetMapping("/pool-stats")
+    @ResponseBody
+    public Map<String, Object> poolStats() {
+        return tenantDataSourceManager.getPoolStatistics();
+    }
+
+    @GetMapping("/tenant-health")
+    @ResponseBody
+    public Map<String, Object> tenantHealth() {
+        // Only tenants that have failed since they were last healthy are listed
+        return tenantHealthMonitor.getHealth();
+    }
+
+    @GetMapping("/readiness")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> readiness() {
+        HttpStatus status = tenantLoader.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status).body(tenantLoader.getReadiness());
+    }
+
+    @GetMapping("/migration-stats")
+    @ResponseBody
+    public Map<String, Object> migrationStats() {
+        return liquibaseService.getMigrationStatistics();
+    }
+
+    @PostMapping("/migrations/rollout")
+    @ResponseBody
+    public Map<String, Object> startRollout() {
+        TenantContext.clear();
+        boolean started = migrationOrchestrator.startRollout();
+        Map<String, Object> progress = migrationOrchestrator.getProgress();
+        progress.put("started", started);
+        return progress;
+    }
+
+    @GetMapping("/migrations/progress")
+    @ResponseBody
+    public Map<String, Object> migrationProgress() {
+        TenantContext.clear();
+        return migrationOrchestrator.getProgress();
     }
 }
\ No newline at end of file
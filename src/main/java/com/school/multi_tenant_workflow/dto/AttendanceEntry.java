@@ -0,0 +1,4 @@
+package com.school.multi_tenant_workflow.dto;
+
+public record AttendanceEntry(Long studentId, String status) {
+}
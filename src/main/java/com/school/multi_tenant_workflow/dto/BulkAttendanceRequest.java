@@ -0,0 +1,10 @@
+package com.school.multi_tenant_workflow.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * JSON body for the bulk attendance endpoint. A missing date means today.
+ */
+public record BulkAttendanceRequest(LocalDate date, List<AttendanceEntry> records) {
+}
@@ -0,0 +1,6 @@
+package com.school.multi_tenant_workflow.dto;
+
+import java.time.LocalDate;
+
+public record DailyAttendanceTotals(LocalDate date, long present, long absent, long od) {
+}
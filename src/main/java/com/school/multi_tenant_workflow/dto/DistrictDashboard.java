@@ -0,0 +1,38 @@
+package com.school.multi_tenant_workflow.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * District-wide totals, merged one school at a time by the scatter-gather service.
+ */
+@Data
+public class DistrictDashboard {
+    private LocalDate date;
+    private long totalStudents;
+    private long present;
+    private long absent;
+    private long od;
+    private int schoolsReporting;
+    private List<String> schoolsNotSubmitted = new ArrayList<>();
+
+    public double getAbsenteeRate() {
+        long marked = present + absent + od;
+        return marked == 0 ? 0.0 : Math.round(absent * 1000.0 / marked) / 10.0;
+    }
+
+    public void add(String school, SchoolAttendanceSnapshot snapshot) {
+        totalStudents += snapshot.students();
+        if (snapshot.submitted()) {
+            schoolsReporting++;
+            present += snapshot.present();
+            absent += snapshot.absent();
+            od += snapshot.od();
+        } else {
+            schoolsNotSubmitted.add(school);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.school.multi_tenant_workflow.dto;
+
+/**
+ * One school's answer to the district dashboard query.
+ */
+public record SchoolAttendanceSnapshot(long students, boolean submitted, long present, long absent, long od) {
+}
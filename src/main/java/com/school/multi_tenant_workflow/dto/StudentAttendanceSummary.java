@@ -0,0 +1,13 @@
+package com.school.multi_tenant_workflow.dto;
+
+public record StudentAttendanceSummary(Long studentId, long present, long absent, long od, double attendancePercentage) {
+
+    /**
+     * OD (on duty) counts as attended.
+     */
+    public static StudentAttendanceSummary of(Long studentId, long present, long absent, long od) {
+        long total = present + absent + od;
+        double percentage = total == 0 ? 0.0 : Math.round((present + od) * 1000.0 / total) / 10.0;
+        return new StudentAttendanceSummary(studentId, present, absent, od, percentage);
+    }
+}
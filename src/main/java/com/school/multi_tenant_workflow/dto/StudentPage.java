@@ -0,0 +1,20 @@
+package com.school.multi_tenant_workflow.dto;
+
+import java.util.List;
+
+/**
+ * One keyset page of students plus the cursor for the next page.
+ * The repository is asked for pageSize + 1 rows; the extra row only signals hasMore.
+ */
+public record StudentPage(List<StudentSummary> students, boolean hasMore, Long nextAfterId, String nextAfterName) {
+
+    public static StudentPage of(List<StudentSummary> fetched, int pageSize) {
+        boolean hasMore = fetched.size() > pageSize;
+        List<StudentSummary> students = List.copyOf(hasMore ? fetched.subList(0, pageSize) : fetched);
+        StudentSummary last = students.isEmpty() ? null : students.get(students.size() - 1);
+        return new StudentPage(students,
+                hasMore,
+                last != null ? last.id() : null,
+                last != null ? last.name() : null);
+    }
+}
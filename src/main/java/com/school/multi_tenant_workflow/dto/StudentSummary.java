@@ -0,0 +1,7 @@
+package com.school.multi_tenant_workflow.dto;
+
+/**
+ * Read-only projection of a student for listing pages; avoids loading managed entities.
+ */
+public record StudentSummary(Long id, String name, String email) {
+}
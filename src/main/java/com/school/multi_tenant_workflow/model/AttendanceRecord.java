@@ -3,10 +3,15 @@ package com.school.multi_tenant_workflow.model;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.time.LocalDate;
+import java.util.Set;
+
 @Entity
 @Table(name = "attendance_records")
 @Data
 public class AttendanceRecord {
+    // The statuses the rollups count; anything else would be stored but never reported
+    public static final Set<String> STATUSES = Set.of("Present", "Absent", "OD");
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
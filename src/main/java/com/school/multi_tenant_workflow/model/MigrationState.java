@@ -0,0 +1,8 @@
+package com.school.multi_tenant_workflow.model;
+
+public enum MigrationState {
+    PENDING,
+    RUNNING,
+    DONE,
+    FAILED
+}
@@ -0,0 +1,28 @@
+package com.school.multi_tenant_workflow.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "provisioning_job")
+@Data
+public class ProvisioningJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String batchId;            // All jobs of one bulk submit share this id
+    private String tenantName;
+    private String serverKey;          // host:port the tenant database is created on
+
+    @Enumerated(EnumType.STRING)
+    private MigrationState state;
+
+    private Long tenantId;             // Set once the tenant is saved to tenant_config
+    private String lastError;
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -15,4 +15,16 @@ public class TenantConfig {
     private String username;
     private String password;
     private String driverClass;    // com.mysql.cj.jdbc.Driver or org.postgresql.Driver
+
+    // Bounds for the adaptive pool sizer; null means the node defaults (2 and 10)
+    private Integer minPoolSize;
+    private Integer maxPoolSize;
+
+    // Set for tenants consolidated into a shared database: url then points at the shared
+    // database and the tenant lives in this schema. Null means a dedicated database.
+    private String schemaName;
+
+    // Optional comma-separated JDBC urls of read replicas, reached with the same credentials
+    // and driver. Read-only transactions are spread over them. Dedicated databases only.
+    private String replicaUrls;
 }
\ No newline at end of file
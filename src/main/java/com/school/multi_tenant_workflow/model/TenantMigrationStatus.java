@@ -0,0 +1,24 @@
+package com.school.multi_tenant_workflow.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "tenant_migration_status")
+@Data
+public class TenantMigrationStatus {
+    @Id
+    private Long tenantId;
+
+    private String tenantName;
+    private String changelogChecksum;  // Rollout this row belongs to
+
+    @Enumerated(EnumType.STRING)
+    private MigrationState state;
+
+    private Integer attempts;
+    private String lastError;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,18 @@
+package com.school.multi_tenant_workflow.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "tenant_schema_version")
+@Data
+public class TenantSchemaVersion {
+    @Id
+    private String tenantUrl;          // JDBC url of the tenant database
+
+    private String changelogChecksum;  // SHA-256 of db/changelog/master.xml last applied
+    private LocalDateTime migratedAt;
+    private Long migrationMillis;
+}
@@ -0,0 +1,99 @@
+package com.school.multi_tenant_workflow.repository;
+
+import com.school.multi_tenant_workflow.model.AttendanceRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk write path for attendance. AttendanceRecord uses IDENTITY ids, which makes Hibernate
+ * fall back to one INSERT per row; here each round trip is a single multi-row upsert of up
+ * to batchSize rows. Rows are keyed on (student_id, date), so resubmitting a day's form
+ * corrects the existing rows instead of appending duplicates, with no read-before-write.
+ * The attendance rollups are refreshed in the same transaction.
+ */
+@Repository
+public class AttendanceBatchWriter {
+
+    // Stay under PostgreSQL's 32767 bind-parameter limit per statement
+    private static final int MAX_BIND_PARAMETERS = 30000;
+    private static final int COLUMNS = 3;
+
+    private static final String INSERT_PREFIX = "INSERT INTO attendance_records (student_id, status, date) VALUES ";
+    private static final String H2_MERGE_PREFIX = "MERGE INTO attendance_records (student_id, status, date) KEY (student_id, date) VALUES ";
+    // VALUES(col) rather than the 8.0.19+ row alias so MariaDB tenants work too
+    private static final String MYSQL_UPSERT_SUFFIX = " ON DUPLICATE KEY UPDATE status = VALUES(status)";
+    private static final String POSTGRES_UPSERT_SUFFIX = " ON CONFLICT (student_id, date) DO UPDATE SET status = EXCLUDED.status";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AttendanceRollupRepository rollupRepository;
+    private final int batchSize;
+
+    public AttendanceBatchWriter(JdbcTemplate jdbcTemplate,
+                                 AttendanceRollupRepository rollupRepository,
+                                 @Value("${attendance.write.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rollupRepository = rollupRepository;
+        this.batchSize = Math.max(1, Math.min(batchSize, MAX_BIND_PARAMETERS / COLUMNS));
+    }
+
+    /**
+     * Inserts or corrects all records for the current tenant in one transaction,
+     * batchSize rows per statement. Returns the number of distinct (student, date) rows written.
+     */
+    @Transactional
+    public int upsertAll(List<AttendanceRecord> records) {
+        // Postgres rejects a statement that touches the same conflict key twice, so the last entry wins
+        Map<AttendanceKey, AttendanceRecord> distinct = new LinkedHashMap<>();
+        for (AttendanceRecord record : records) {
+            distinct.put(new AttendanceKey(record.getStudentId(), record.getDate()), record);
+        }
+        List<AttendanceRecord> rows = new ArrayList<>(distinct.values());
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        SqlDialect dialect = SqlDialect.of(jdbcTemplate);
+        String prefix = dialect == SqlDialect.H2 ? H2_MERGE_PREFIX : INSERT_PREFIX;
+        String suffix = switch (dialect) {
+            case MYSQL -> MYSQL_UPSERT_SUFFIX;
+            case POSTGRESQL -> POSTGRES_UPSERT_SUFFIX;
+            case H2 -> "";
+        };
+        String fullBatchSql = upsertSql(batchSize, prefix, suffix);
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<AttendanceRecord> chunk = rows.subList(from, Math.min(from + batchSize, rows.size()));
+            // Full chunks reuse one SQL string so the driver's statement cache stays warm
+            String sql = chunk.size() == batchSize ? fullBatchSql : upsertSql(chunk.size(), prefix, suffix);
+            jdbcTemplate.update(sql, ps -> {
+                int index = 1;
+                for (AttendanceRecord record : chunk) {
+                    ps.setLong(index++, record.getStudentId());
+                    ps.setString(index++, record.getStatus());
+                    ps.setDate(index++, Date.valueOf(record.getDate()));
+                }
+            });
+        }
+        rollupRepository.refresh(rows);
+        return rows.size();
+    }
+
+    private static String upsertSql(int rows, String prefix, String suffix) {
+        StringBuilder sql = new StringBuilder(prefix);
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+        }
+        return sql.append(suffix).toString();
+    }
+
+    private record AttendanceKey(Long studentId, LocalDate date) {
+    }
+}
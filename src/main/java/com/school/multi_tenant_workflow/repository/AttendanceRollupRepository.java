@@ -0,0 +1,193 @@
+package com.school.multi_tenant_workflow.repository;
+
+import com.school.multi_tenant_workflow.dto.DailyAttendanceTotals;
+import com.school.multi_tenant_workflow.dto.StudentAttendanceSummary;
+import com.school.multi_tenant_workflow.model.AttendanceRecord;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains attendance_monthly_rollup (per student, per month) and attendance_daily_totals
+ * (per day) so reports read O(students) rollup rows instead of scanning attendance_records.
+ * Writes recompute only the (student, month) and day keys touched by a submission, which keeps
+ * the rollups exact even when an upsert changes a student's status for a day.
+ * Each rollup row is locked before it is recomputed, so overlapping submissions for the same
+ * day take turns and the later one counts the earlier one's committed rows.
+ */
+@Repository
+public class AttendanceRollupRepository {
+
+    private static final int MAX_IN_LIST = 500;
+
+    private static final String STATUS_COUNTS =
+            "SUM(CASE WHEN status = 'Present' THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN status = 'Absent' THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN status = 'OD' THEN 1 ELSE 0 END)";
+
+    private static final String MONTHLY_TABLE =
+            "attendance_monthly_rollup (student_id, month_start, present_count, absent_count, od_count) ";
+    private static final String DAILY_TABLE =
+            "attendance_daily_totals (date, present_count, absent_count, od_count) ";
+    private static final String MONTHLY_INSERT = "INSERT INTO " + MONTHLY_TABLE;
+    private static final String DAILY_INSERT = "INSERT INTO " + DAILY_TABLE;
+
+    private static final String MYSQL_COUNTS_UPDATE = " ON DUPLICATE KEY UPDATE present_count = VALUES(present_count),"
+            + " absent_count = VALUES(absent_count), od_count = VALUES(od_count)";
+    private static final String POSTGRES_COUNTS_UPDATE = " DO UPDATE SET present_count = EXCLUDED.present_count,"
+            + " absent_count = EXCLUDED.absent_count, od_count = EXCLUDED.od_count";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AttendanceRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Recomputes the rollup rows affected by the given records. Runs in the caller's
+     * transaction so rollups commit or roll back together with the attendance write.
+     */
+    public void refresh(Collection<AttendanceRecord> written) {
+        if (written.isEmpty()) {
+            return;
+        }
+        SqlDialect dialect = SqlDialect.of(jdbcTemplate);
+
+        Map<YearMonth, Set<Long>> studentsByMonth = new TreeMap<>();
+        Set<LocalDate> days = new TreeSet<>();
+        for (AttendanceRecord record : written) {
+            studentsByMonth.computeIfAbsent(YearMonth.from(record.getDate()), month -> new TreeSet<>())
+                    .add(record.getStudentId());
+            days.add(record.getDate());
+        }
+
+        // All locks are taken in one global order (months, then days, each ascending) and only
+        // after the attendance rows are written, so concurrent refreshes cannot deadlock
+        Map<YearMonth, List<List<Long>>> chunksByMonth = new TreeMap<>();
+        studentsByMonth.forEach((month, studentIds) -> {
+            List<Long> ids = new ArrayList<>(studentIds);
+            for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+                List<Long> chunk = ids.subList(from, Math.min(from + MAX_IN_LIST, ids.size()));
+                lockMonth(dialect, month, chunk);
+                chunksByMonth.computeIfAbsent(month, key -> new ArrayList<>()).add(chunk);
+            }
+        });
+        days.forEach(day -> lockDay(dialect, day));
+
+        chunksByMonth.forEach((month, chunks) -> chunks.forEach(chunk -> refreshMonth(dialect, month, chunk)));
+        days.forEach(day -> refreshDay(dialect, day));
+    }
+
+    /**
+     * Creates or row-locks the rollup rows about to be recomputed. The recompute reads
+     * attendance_records from a statement snapshot; without the lock two overlapping writers
+     * each miss the other's uncommitted rows and the last commit wins with a short count.
+     * The zeroed counts are overwritten by the recompute before the transaction commits.
+     */
+    private void lockMonth(SqlDialect dialect, YearMonth month, List<Long> studentIds) {
+        String values = studentIds.stream().map(id -> "(?, ?, 0, 0, 0)").collect(Collectors.joining(", "));
+        List<Object> args = new ArrayList<>();
+        for (Long studentId : studentIds) {
+            args.add(studentId);
+            args.add(Date.valueOf(month.atDay(1)));
+        }
+        jdbcTemplate.update(upsertPrefix(dialect, MONTHLY_TABLE, "student_id, month_start") + "VALUES " + values
+                + upsertSuffix(dialect, "student_id, month_start"), args.toArray());
+    }
+
+    private void lockDay(SqlDialect dialect, LocalDate day) {
+        jdbcTemplate.update(upsertPrefix(dialect, DAILY_TABLE, "date") + "VALUES (?, 0, 0, 0)"
+                + upsertSuffix(dialect, "date"), Date.valueOf(day));
+    }
+
+    private void refreshMonth(SqlDialect dialect, YearMonth month, List<Long> studentIds) {
+        String placeholders = studentIds.stream().map(id -> "?").collect(Collectors.joining(", "));
+        String sql = upsertPrefix(dialect, MONTHLY_TABLE, "student_id, month_start")
+                + "SELECT student_id, CAST(? AS DATE), " + STATUS_COUNTS + " FROM attendance_records"
+                + " WHERE date >= ? AND date < ? AND student_id IN (" + placeholders + ")"
+                + " GROUP BY student_id"
+                + upsertSuffix(dialect, "student_id, month_start");
+
+        List<Object> args = new ArrayList<>();
+        args.add(Date.valueOf(month.atDay(1)));
+        args.add(Date.valueOf(month.atDay(1)));
+        args.add(Date.valueOf(month.plusMonths(1).atDay(1)));
+        args.addAll(studentIds);
+        jdbcTemplate.update(sql, args.toArray());
+    }
+
+    private void refreshDay(SqlDialect dialect, LocalDate day) {
+        String sql = upsertPrefix(dialect, DAILY_TABLE, "date")
+                + "SELECT CAST(? AS DATE), " + STATUS_COUNTS + " FROM attendance_records WHERE date = ?"
+                + upsertSuffix(dialect, "date");
+        jdbcTemplate.update(sql, Date.valueOf(day), Date.valueOf(day));
+    }
+
+    /**
+     * Rebuilds both rollup tables from attendance_records, e.g. after a backfill or bulk import.
+     */
+    @Transactional
+    public void rebuild() {
+        SqlDialect dialect = SqlDialect.of(jdbcTemplate);
+        String monthExpression = dialect != SqlDialect.MYSQL
+                ? "CAST(date_trunc('month', date) AS DATE)"
+                : "DATE_FORMAT(date, '%Y-%m-01')";
+
+        jdbcTemplate.update("DELETE FROM attendance_monthly_rollup");
+        jdbcTemplate.update("DELETE FROM attendance_daily_totals");
+        jdbcTemplate.update(MONTHLY_INSERT
+                + "SELECT student_id, " + monthExpression + ", " + STATUS_COUNTS + " FROM attendance_records"
+                + " GROUP BY student_id, " + monthExpression);
+        jdbcTemplate.update(DAILY_INSERT
+                + "SELECT date, " + STATUS_COUNTS + " FROM attendance_records GROUP BY date");
+    }
+
+    /**
+     * Per-student totals over whole months, e.g. one month or a term.
+     */
+    @Transactional(readOnly = true)
+    public List<StudentAttendanceSummary> summarizeByStudent(YearMonth fromMonth, YearMonth toMonth) {
+        return jdbcTemplate.query(
+                "SELECT student_id, SUM(present_count), SUM(absent_count), SUM(od_count)"
+                        + " FROM attendance_monthly_rollup WHERE month_start >= ? AND month_start <= ?"
+                        + " GROUP BY student_id ORDER BY student_id",
+                (rs, rowNum) -> StudentAttendanceSummary.of(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)),
+                Date.valueOf(fromMonth.atDay(1)), Date.valueOf(toMonth.atDay(1)));
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailyAttendanceTotals> dailyTotals(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(
+                "SELECT date, present_count, absent_count, od_count FROM attendance_daily_totals"
+                        + " WHERE date >= ? AND date <= ? ORDER BY date",
+                (rs, rowNum) -> new DailyAttendanceTotals(rs.getDate(1).toLocalDate(),
+                        rs.getLong(2), rs.getLong(3), rs.getLong(4)),
+                Date.valueOf(from), Date.valueOf(to));
+    }
+
+    private static String upsertPrefix(SqlDialect dialect, String table, String keyColumns) {
+        return dialect == SqlDialect.H2
+                ? "MERGE INTO " + table + "KEY (" + keyColumns + ") "
+                : "INSERT INTO " + table;
+    }
+
+    private static String upsertSuffix(SqlDialect dialect, String conflictColumns) {
+        return switch (dialect) {
+            case MYSQL -> MYSQL_COUNTS_UPDATE;
+            case POSTGRESQL -> " ON CONFLICT (" + conflictColumns + ")" + POSTGRES_COUNTS_UPDATE;
+            case H2 -> "";
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package com.school.multi_tenant_workflow.repository;
+
+import com.school.multi_tenant_workflow.model.MigrationState;
+import com.school.multi_tenant_workflow.model.ProvisioningJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProvisioningJobRepository extends JpaRepository<ProvisioningJob, Long> {
+    List<ProvisioningJob> findByBatchIdOrderById(String batchId);
+
+    List<ProvisioningJob> findByStateIn(Collection<MigrationState> states);
+}
@@ -0,0 +1,34 @@
+package com.school.multi_tenant_workflow.repository;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * The SQL flavours tenant databases come in. MariaDB is treated as MySQL.
+ * H2 covers the embedded tenant databases of the load harness and benchmarks; it has
+ * no ON CONFLICT ... DO UPDATE in any compatibility mode, so upserts use its MERGE ... KEY.
+ */
+public enum SqlDialect {
+    MYSQL,
+    POSTGRESQL,
+    H2;
+
+    public static SqlDialect of(Connection connection) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName();
+        String name = product != null ? product.toLowerCase() : "";
+        if (name.contains("postgres")) {
+            return POSTGRESQL;
+        }
+        return name.equals("h2") ? H2 : MYSQL;
+    }
+
+    /**
+     * Dialect of the database the current tenant routes to.
+     */
+    public static SqlDialect of(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.execute((ConnectionCallback<SqlDialect>) SqlDialect::of);
+    }
+}
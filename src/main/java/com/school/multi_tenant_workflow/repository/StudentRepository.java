@@ -1,10 +1,34 @@
 package com.school.multi_tenant_workflow.repository;
 
+import com.school.multi_tenant_workflow.dto.StudentSummary;
 import com.school.multi_tenant_workflow.model.Student;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface StudentRepository extends JpaRepository<Student, Long> {
     // This will handle saving students to whichever DB is active!
-}
\ No newline at end of file
+
+    // Keyset (seek) pages: each page starts after the last row of the previous one, so
+    // the database walks the index from the cursor instead of counting past an OFFSET.
+
+    @Query("select new com.school.multi_tenant_workflow.dto.StudentSummary(s.id, s.name, s.email) "
+            + "from Student s where s.id > :afterId order by s.id")
+    List<StudentSummary> findPageAfterId(@Param("afterId") long afterId, Limit limit);
+
+    @Query("select new com.school.multi_tenant_workflow.dto.StudentSummary(s.id, s.name, s.email) "
+            + "from Student s where s.name > :afterName or (s.name = :afterName and s.id > :afterId) "
+            + "order by s.name, s.id")
+    List<StudentSummary> findPageAfterName(@Param("afterName") String afterName,
+                                           @Param("afterId") long afterId,
+                                           Limit limit);
+
+    @Query("select new com.school.multi_tenant_workflow.dto.StudentSummary(s.id, s.name, s.email) "
+            + "from Student s order by s.name, s.id")
+    List<StudentSummary> findFirstPageByName(Limit limit);
+}
@@ -0,0 +1,15 @@
+package com.school.multi_tenant_workflow.repository;
+
+import com.school.multi_tenant_workflow.model.MigrationState;
+import com.school.multi_tenant_workflow.model.TenantMigrationStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+@Repository
+public interface TenantMigrationStatusRepository extends JpaRepository<TenantMigrationStatus, Long> {
+    long countByChangelogChecksumAndState(String changelogChecksum, MigrationState state);
+
+    boolean existsByChangelogChecksumAndStateIn(String changelogChecksum, Collection<MigrationState> states);
+}
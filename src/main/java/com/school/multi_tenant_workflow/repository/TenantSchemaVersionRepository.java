@@ -0,0 +1,10 @@
+package com.school.multi_tenant_workflow.repository;
+
+import com.school.multi_tenant_workflow.model.TenantSchemaVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TenantSchemaVersionRepository extends JpaRepository<TenantSchemaVersion, String> {
+    // Lives in the Master DB: one row per tenant database with the changelog checksum applied to it
+}
@@ -0,0 +1,561 @@
+package com.school.multi_tenant_workflow.service;
+
+import com.school.multi_tenant_workflow.config.TenantContext;
+import com.school.multi_tenant_workflow.config.TenantDataSourceManager;
+import com.school.multi_tenant_workflow.model.AttendanceRecord;
+import com.school.multi_tenant_workflow.repository.AttendanceBatchWriter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Write-behind mode for attendance (attendance.write-behind.enabled). A submission is
+ * acknowledged once it is appended to the tenant's journal and fsynced; a background
+ * flusher later upserts everything pending for the tenant in one AttendanceBatchWriter call,
+ * each tenant on its own virtual thread.
+ * <p>
+ * Each tenant has one memory-mapped, append-only file. Appenders that arrive while an fsync is
+ * running are covered by the next one, so a burst of roll calls costs a few fsyncs rather than
+ * one each. The header records how far the journal has been flushed; once everything is
+ * flushed the file is rewound and its generation bumped, so old records are never replayed.
+ * On startup every journal is scanned from its flushed offset up to the last record with a
+ * valid checksum, and that backlog is flushed like any other. Upserts are keyed on
+ * (student_id, date), so replaying a batch whose flush was cut short is harmless.
+ * <p>
+ * If the coalesced upsert is rejected by the database, the range is retried one submission at
+ * a time. A submission that cannot be decoded, or whose rows violate the schema, is copied as
+ * is to {@code <tenant>.rejected} next to the journal and skipped, so it cannot hold back the
+ * tenant's later roll calls. Any other failure (database down, circuit open) leaves the range
+ * in place for the next round.
+ * <p>
+ * Meters: {@code attendance.journal.backlog} submissions and {@code attendance.journal.backlog.bytes}
+ * not yet flushed, {@code attendance.journal.lag} age of the oldest of them (ms),
+ * {@code attendance.journal.flush}, {@code attendance.journal.syncs} and
+ * {@code attendance.journal.rejected}, all tagged by tenant.
+ */
+@Service
+public class AttendanceJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceJournal.class);
+
+    private static final String SUFFIX = ".journal";
+    private static final String REJECTED_SUFFIX = ".rejected";
+    // Header: flushed offset (long), generation (long); records start after it
+    private static final int HEADER_BYTES = 64;
+    // Record: length (int), generation (long), appended-at millis (long), entry count (int) ... crc (int)
+    private static final int RECORD_HEADER_BYTES = 4 + 8 + 8 + 4;
+    private static final int CRC_BYTES = 4;
+
+    private final AttendanceBatchWriter batchWriter;
+    private final TenantDataSourceManager tenantDataSourceManager;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+
+    private final Map<String, TenantJournal> journals = new ConcurrentHashMap<>();
+    private final Set<String> flushesInFlight = ConcurrentHashMap.newKeySet();
+    private final ExecutorService flushExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public AttendanceJournal(AttendanceBatchWriter batchWriter,
+                             TenantDataSourceManager tenantDataSourceManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${attendance.write-behind.enabled:false}") boolean enabled,
+                             @Value("${attendance.write-behind.dir:attendance-journal}") String directory,
+                             @Value("${attendance.write-behind.segment-bytes:8388608}") int segmentBytes) {
+        this.batchWriter = batchWriter;
+        this.tenantDataSourceManager = tenantDataSourceManager;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentBytes = Math.max(HEADER_BYTES * 16, segmentBytes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Re-opens the journals left by the previous run; their backlog is flushed on the next round.
+     */
+    @PostConstruct
+    public void recover() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String tenant = URLDecoder.decode(fileName.substring(0, fileName.length() - SUFFIX.length()), StandardCharsets.UTF_8);
+                TenantJournal journal = journals.computeIfAbsent(tenant, this::open);
+                if (journal.pendingSubmissions.get() > 0) {
+                    log.info("Recovered {} unflushed attendance submissions for tenant {}",
+                            journal.pendingSubmissions.get(), tenant);
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends the submission to the tenant's journal and returns once it is durable.
+     * Returns false if the journal cannot take it (too large, or an I/O error); the tenant's
+     * backlog has then been flushed where possible and the caller should write synchronously.
+     *
+     * @throws IllegalArgumentException if a record has no student, date or status, or a status
+     *                                  too long for the journal format
+     */
+    public boolean append(String tenant, List<AttendanceRecord> records) {
+        if (records.isEmpty()) {
+            return true;
+        }
+        try {
+            TenantJournal journal = journals.computeIfAbsent(tenant, this::open);
+            byte[] record = encode(records);
+            long sequence = journal.append(record);
+            if (sequence < 0) {
+                // Full: make room by flushing now, then try once more
+                flush(journal);
+                sequence = journal.append(record);
+            }
+            if (sequence < 0) {
+                return false;
+            }
+            journal.awaitDurable(sequence);
+            return true;
+        } catch (UncheckedIOException e) {
+            log.warn("Attendance journal unavailable for tenant {}, writing synchronously: {}", tenant, e.getMessage());
+            TenantJournal journal = journals.get(tenant);
+            if (journal != null) {
+                flush(journal);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Starts a flush for every registered tenant with a journal, one flush per tenant at a time.
+     * A slow or unreachable tenant database must not hold back everyone else's backlog, so
+     * flushes run on virtual threads instead of the scheduler thread.
+     */
+    @Scheduled(fixedDelayString = "${attendance.write-behind.flush-interval-ms:500}")
+    public void flushAll() {
+        if (!enabled) {
+            return;
+        }
+        for (TenantJournal journal : registeredJournals()) {
+            if (flushesInFlight.add(journal.tenant)) {
+                flushExecutor.execute(() -> {
+                    try {
+                        flush(journal);
+                    } finally {
+                        flushesInFlight.remove(journal.tenant);
+                    }
+                });
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() throws InterruptedException {
+        flushExecutor.shutdown();
+        flushExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        if (enabled) {
+            registeredJournals().forEach(this::flush);
+        }
+        journals.values().forEach(TenantJournal::close);
+    }
+
+    boolean isFlushing() {
+        return !flushesInFlight.isEmpty();
+    }
+
+    // A journal can outlive its tenant's registration (e.g. replayed before the registry loads)
+    private List<TenantJournal> registeredJournals() {
+        Set<String> registered = new HashSet<>(tenantDataSourceManager.getRegisteredTenantNames());
+        return journals.values().stream()
+                .filter(journal -> registered.contains(journal.tenant))
+                .toList();
+    }
+
+    private void flush(TenantJournal journal) {
+        journal.flushLock.lock();
+        try {
+            int from = journal.flushedPosition;
+            int to = journal.syncedPosition;
+            if (from < to) {
+                List<AttendanceRecord> records = new ArrayList<>();
+                try {
+                    int submissions = decode(journal, from, to, records);
+                    // One coalesced upsert per tenant; later submissions for the same student and day win
+                    upsert(journal, records);
+                    journal.markFlushed(to, submissions);
+                } catch (DataIntegrityViolationException | IllegalStateException | DateTimeException e) {
+                    // Something in the range is bad: find it by flushing one submission at a time
+                    flushEach(journal, from, to);
+                }
+            }
+            journal.rewindIfDrained();
+        } catch (RuntimeException e) {
+            // Stays in the journal and is retried next round
+            log.warn("Flushing attendance journal failed for tenant {}: {}", journal.tenant, e.getMessage());
+        } finally {
+            journal.flushLock.unlock();
+        }
+    }
+
+    // Caller holds flushLock; stops at the first failure that is not the submission's own fault
+    private void flushEach(TenantJournal journal, int from, int to) {
+        int position = from;
+        while (position < to) {
+            int length = journal.buffer.getInt(position);
+            if (length < RECORD_HEADER_BYTES + CRC_BYTES || position + length > to) {
+                // Record boundaries are lost; nothing after this point can be decoded
+                length = to - position;
+                reject(journal, position, length, "unreadable record length");
+            } else {
+                List<AttendanceRecord> records = new ArrayList<>();
+                try {
+                    decode(journal, position, position + length, records);
+                    upsert(journal, records);
+                } catch (DataIntegrityViolationException | IllegalStateException | DateTimeException e) {
+                    reject(journal, position, length, e.getMessage());
+                }
+            }
+            position += length;
+            journal.markFlushed(position, 1);
+        }
+    }
+
+    private void upsert(TenantJournal journal, List<AttendanceRecord> records) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        TenantContext.runWithTenant(journal.tenant, () -> batchWriter.upsertAll(records));
+        sample.stop(meterRegistry.timer("attendance.journal.flush", "tenant", journal.tenant));
+    }
+
+    private void reject(TenantJournal journal, int position, int length, String reason) {
+        meterRegistry.counter("attendance.journal.rejected", "tenant", journal.tenant).increment();
+        byte[] record = new byte[length];
+        journal.buffer.get(position, record);
+        Path file = directory.resolve(URLEncoder.encode(journal.tenant, StandardCharsets.UTF_8) + REJECTED_SUFFIX);
+        try {
+            Files.write(file, record, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            log.error("Rejected an attendance submission for tenant {} ({}); kept in {}", journal.tenant, reason, file);
+        } catch (IOException e) {
+            log.error("Rejected an attendance submission for tenant {} ({}) and could not keep it in {}: {}",
+                    journal.tenant, reason, file, e.getMessage());
+        }
+    }
+
+    private TenantJournal open(String tenant) {
+        try {
+            Files.createDirectories(directory);
+            Path file = directory.resolve(URLEncoder.encode(tenant, StandardCharsets.UTF_8) + SUFFIX);
+            TenantJournal journal = new TenantJournal(tenant, file);
+            Gauge.builder("attendance.journal.backlog", journal, j -> j.pendingSubmissions.get())
+                    .tag("tenant", tenant).register(meterRegistry);
+            Gauge.builder("attendance.journal.backlog.bytes", journal, j -> j.writePosition - j.flushedPosition)
+                    .tag("tenant", tenant).baseUnit("bytes").register(meterRegistry);
+            Gauge.builder("attendance.journal.lag", journal,
+                            j -> j.oldestPendingAt == 0 ? 0 : System.currentTimeMillis() - j.oldestPendingAt)
+                    .tag("tenant", tenant).baseUnit("milliseconds").register(meterRegistry);
+            return journal;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The generation and checksum are left blank; TenantJournal.append stamps them
+    private static byte[] encode(List<AttendanceRecord> records) {
+        List<byte[]> statuses = new ArrayList<>(records.size());
+        int length = RECORD_HEADER_BYTES + CRC_BYTES;
+        for (AttendanceRecord record : records) {
+            if (record.getStudentId() == null || record.getDate() == null || record.getStatus() == null) {
+                throw new IllegalArgumentException("Attendance record needs a student, date and status");
+            }
+            byte[] status = record.getStatus().getBytes(StandardCharsets.UTF_8);
+            if (status.length > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Attendance status is too long: " + status.length + " bytes");
+            }
+            statuses.add(status);
+            length += 8 + 8 + 2 + status.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(length).putLong(0).putLong(System.currentTimeMillis()).putInt(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            AttendanceRecord record = records.get(i);
+            buffer.putLong(record.getStudentId())
+                    .putLong(record.getDate().toEpochDay())
+                    .putShort((short) statuses.get(i).length)
+                    .put(statuses.get(i));
+        }
+        return buffer.array();
+    }
+
+    private static void seal(byte[] record, long generation) {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        buffer.putLong(4, generation);
+        CRC32 crc = new CRC32();
+        crc.update(record, 4, record.length - 4 - CRC_BYTES);
+        buffer.putInt(record.length - CRC_BYTES, (int) crc.getValue());
+    }
+
+    // Reads the records in [from, to) into out and returns how many submissions they held
+    private static int decode(TenantJournal journal, int from, int to, List<AttendanceRecord> out) {
+        ByteBuffer view = journal.buffer.duplicate();
+        int submissions = 0;
+        int position = from;
+        while (position < to) {
+            int length = view.getInt(position);
+            int count = view.getInt(position + 4 + 8 + 8);
+            if (length < RECORD_HEADER_BYTES + CRC_BYTES || position + length > to || count < 0) {
+                throw new IllegalStateException("Corrupt attendance journal record at offset " + position);
+            }
+            int end = position + length - CRC_BYTES;
+            view.position(position + RECORD_HEADER_BYTES);
+            for (int i = 0; i < count; i++) {
+                if (view.position() + 8 + 8 + 2 > end) {
+                    throw new IllegalStateException("Corrupt attendance journal record at offset " + position);
+                }
+                AttendanceRecord record = new AttendanceRecord();
+                record.setStudentId(view.getLong());
+                record.setDate(LocalDate.ofEpochDay(view.getLong()));
+                short statusLength = view.getShort();
+                if (statusLength < 0 || view.position() + statusLength > end) {
+                    throw new IllegalStateException("Corrupt attendance journal record at offset " + position);
+                }
+                byte[] status = new byte[statusLength];
+                view.get(status);
+                record.setStatus(new String(status, StandardCharsets.UTF_8));
+                out.add(record);
+            }
+            submissions++;
+            position += length;
+        }
+        return submissions;
+    }
+
+    // Length of the intact record at position, or 0 at the end of the current generation
+    private static int validRecordLength(ByteBuffer buffer, int position, int limit, long generation) {
+        if (position + RECORD_HEADER_BYTES + CRC_BYTES > limit) {
+            return 0;
+        }
+        int length = buffer.getInt(position);
+        if (length < RECORD_HEADER_BYTES + CRC_BYTES || position + length > limit
+                || buffer.getLong(position + 4) != generation) {
+            return 0;
+        }
+        byte[] body = new byte[length - 4 - CRC_BYTES];
+        buffer.get(position + 4, body);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return buffer.getInt(position + length - CRC_BYTES) == (int) crc.getValue() ? length : 0;
+    }
+
+    private final class TenantJournal {
+        private final String tenant;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+
+        // Lock order: flushLock, then appendLock, then syncLock
+        private final ReentrantLock flushLock = new ReentrantLock();
+        private final ReentrantLock appendLock = new ReentrantLock();
+        private final ReentrantLock syncLock = new ReentrantLock();
+        private final Condition durable = syncLock.newCondition();
+
+        private volatile long generation;
+        private volatile int writePosition;
+        private volatile int syncedPosition;
+        private volatile int flushedPosition;
+        private volatile long oldestPendingAt;
+        private final AtomicInteger pendingSubmissions = new AtomicInteger();
+
+        // Sequence numbers never rewind, so a waiter cannot miss its fsync across a rewind
+        private long appendedSequence;        // guarded by appendLock
+        private long syncedSequence;          // guarded by syncLock
+        private boolean syncInProgress;       // guarded by syncLock
+
+        private TenantJournal(String tenant, Path file) throws IOException {
+            this.tenant = tenant;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.capacity = (int) Math.max(segmentBytes, channel.size());
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+            long flushed = buffer.getLong(0);
+            generation = buffer.getLong(8);
+            if (generation == 0 || flushed < HEADER_BYTES || flushed > capacity) {
+                generation = 1;
+                flushed = HEADER_BYTES;
+                writeHeader((int) flushed);
+            }
+            flushedPosition = (int) flushed;
+
+            // Replay: everything intact after the flushed offset is still owed to the database
+            int position = flushedPosition;
+            int length;
+            while ((length = validRecordLength(buffer, position, capacity, generation)) > 0) {
+                if (oldestPendingAt == 0) {
+                    oldestPendingAt = buffer.getLong(position + 4 + 8);
+                }
+                pendingSubmissions.incrementAndGet();
+                position += length;
+            }
+            writePosition = position;
+            syncedPosition = position;
+        }
+
+        /**
+         * Returns the record's sequence number, or -1 if it does not fit. The generation is read
+         * under appendLock, which rewindIfDrained also holds, so a record can never carry the
+         * generation from before a rewind into the file after it.
+         */
+        private long append(byte[] record) {
+            appendLock.lock();
+            try {
+                if (writePosition + record.length > capacity) {
+                    return -1;
+                }
+                seal(record, generation);
+                buffer.put(writePosition, record);
+                if (pendingSubmissions.getAndIncrement() == 0) {
+                    oldestPendingAt = System.currentTimeMillis();
+                }
+                writePosition += record.length;
+                return ++appendedSequence;
+            } finally {
+                appendLock.unlock();
+            }
+        }
+
+        /**
+         * Group commit: the first waiter forces every byte appended so far, and whoever queued
+         * behind it during that fsync is covered by the next one.
+         */
+        private void awaitDurable(long sequence) {
+            syncLock.lock();
+            try {
+                while (syncedSequence < sequence) {
+                    if (syncInProgress) {
+                        durable.awaitUninterruptibly();
+                        continue;
+                    }
+                    syncInProgress = true;
+                    syncLock.unlock();
+                    long targetSequence;
+                    int targetPosition;
+                    try {
+                        appendLock.lock();
+                        try {
+                            targetSequence = appendedSequence;
+                            targetPosition = writePosition;
+                        } finally {
+                            appendLock.unlock();
+                        }
+                        int from = syncedPosition;
+                        if (targetPosition > from) {
+                            buffer.force(from, targetPosition - from);
+                        }
+                        meterRegistry.counter("attendance.journal.syncs", "tenant", tenant).increment();
+                    } finally {
+                        syncLock.lock();
+                        syncInProgress = false;
+                    }
+                    syncedSequence = Math.max(syncedSequence, targetSequence);
+                    syncedPosition = Math.max(syncedPosition, targetPosition);
+                    durable.signalAll();
+                }
+            } finally {
+                syncLock.unlock();
+            }
+        }
+
+        // Caller holds flushLock
+        private void markFlushed(int position, int submissions) {
+            writeHeader(position);
+            flushedPosition = position;
+            pendingSubmissions.addAndGet(-submissions);
+            appendLock.lock();
+            try {
+                oldestPendingAt = position < writePosition ? buffer.getLong(position + 4 + 8) : 0;
+            } finally {
+                appendLock.unlock();
+            }
+        }
+
+        /**
+         * Once every record is flushed the file is reused from the start under a new generation.
+         * Caller holds flushLock.
+         */
+        private void rewindIfDrained() {
+            appendLock.lock();
+            syncLock.lock();
+            try {
+                if (syncInProgress || flushedPosition != writePosition || writePosition == HEADER_BYTES) {
+                    return;
+                }
+                generation++;
+                // Drained means nothing is pending, even if a rejected block held an unknown number of submissions
+                pendingSubmissions.set(0);
+                oldestPendingAt = 0;
+                writePosition = HEADER_BYTES;
+                syncedPosition = HEADER_BYTES;
+                flushedPosition = HEADER_BYTES;
+                writeHeader(HEADER_BYTES);
+            } finally {
+                syncLock.unlock();
+                appendLock.unlock();
+            }
+        }
+
+        private void writeHeader(int flushed) {
+            buffer.putLong(0, flushed);
+            buffer.putLong(8, generation);
+            buffer.force(0, 16);
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Could not close attendance journal for tenant {}: {}", tenant, e.getMessage());
+            }
+        }
+    }
+}
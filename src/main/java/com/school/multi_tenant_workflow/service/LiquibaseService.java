@@ -1,6 +1,10 @@
 package com.school.multi_tenant_workflow.service;
 
+import com.school.multi_tenant_workflow.config.TenantSchemaDataSource;
+import com.school.multi_tenant_workflow.model.TenantSchemaVersion;
+import com.school.multi_tenant_workflow.repository.TenantSchemaVersionRepository;
 import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
 import liquibase.Liquibase;
 import liquibase.database.Database;
 import liquibase.database.DatabaseFactory;
@@ -9,16 +13,34 @@ import liquibase.exception.LiquibaseException;
 import liquibase.resource.ClassLoaderResourceAccessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service responsible for the physical creation of tenant databases
  * and executing Liquibase schema migrations across MySQL and PostgreSQL.
+ * Tenants consolidated into a shared database get a schema there instead of a database,
+ * with their own Liquibase changelog tables inside it.
+ * Tenants already at the current changelog checksum are skipped without opening a connection.
+ * CREATE DATABASE runs over one long-lived admin connection per database server and login,
+ * and each migration over a single unpooled connection, so provisioning a batch of schools
+ * does not build and tear down two pools per tenant.
  */
 @Service
 public class LiquibaseService {
@@ -26,7 +48,118 @@ public class LiquibaseService {
     private static final Logger log = LoggerFactory.getLogger(LiquibaseService.class);
     private static final String CHANGELOG_FILE = "db/changelog/master.xml";
 
+    private final TenantSchemaVersionRepository schemaVersionRepository;
+    private final String changelogChecksum;
+
+    // version key (tenant url, plus #schema for shared-database tenants) -> checksum applied;
+    // backed by tenant_schema_version in the Master DB
+    private final Map<String, String> appliedChecksums = new ConcurrentHashMap<>();
+
+    // One admin connection (a pool of one) per server root and login, reused across tenants
+    private final Map<AdminKey, HikariDataSource> adminDataSources = new ConcurrentHashMap<>();
+
+    private final AtomicLong migrationsRun = new AtomicLong();
+    private final AtomicLong migrationsSkipped = new AtomicLong();
+    private final AtomicLong totalMigrationMillis = new AtomicLong();
+    private final AtomicLong estimatedMillisSaved = new AtomicLong();
+
+    public LiquibaseService(TenantSchemaVersionRepository schemaVersionRepository) {
+        this.schemaVersionRepository = schemaVersionRepository;
+        this.changelogChecksum = computeChangelogChecksum();
+    }
+
+    /**
+     * Migrates the tenant database unless it is already at the current changelog checksum.
+     * Callers must have cleared TenantContext so the version lookup hits the Master DB.
+     */
     public void runMigration(String url, String username, String password, String driverClass) {
+        runMigration(url, username, password, driverClass, null);
+    }
+
+    /**
+     * As above; a non-blank schemaName provisions and migrates that schema of the shared
+     * database at url rather than the database itself.
+     */
+    public void runMigration(String url, String username, String password, String driverClass, String schemaName) {
+        String schema = schemaName == null || schemaName.isBlank() ? null : TenantSchemaDataSource.requireValidSchemaName(schemaName);
+        String versionKey = versionKey(url, schema);
+        if (isSchemaCurrent(versionKey)) {
+            migrationsSkipped.incrementAndGet();
+            estimatedMillisSaved.addAndGet(averageMigrationMillis());
+            log.debug("Schema already current for {}, skipping migration", versionKey);
+            return;
+        }
+
+        long started = System.currentTimeMillis();
+        migrate(url, username, password, driverClass, schema);
+        long elapsed = System.currentTimeMillis() - started;
+
+        migrationsRun.incrementAndGet();
+        totalMigrationMillis.addAndGet(elapsed);
+        recordApplied(versionKey, elapsed);
+    }
+
+    // Shared-database tenants share a url, so their schema is part of the version key
+    private static String versionKey(String url, String schemaName) {
+        return schemaName == null ? url : url + "#" + schemaName;
+    }
+
+    public String getChangelogChecksum() {
+        return changelogChecksum;
+    }
+
+    public boolean isSchemaCurrent(String versionKey) {
+        String applied = appliedChecksums.get(versionKey);
+        if (applied == null) {
+            applied = schemaVersionRepository.findById(versionKey)
+                    .map(TenantSchemaVersion::getChangelogChecksum)
+                    .orElse(null);
+            if (applied != null) {
+                appliedChecksums.put(versionKey, applied);
+            }
+        }
+        return changelogChecksum.equals(applied);
+    }
+
+    /**
+     * Skip/run counters and the migration time avoided by the checksum cache.
+     */
+    public Map<String, Object> getMigrationStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("changelogChecksum", changelogChecksum);
+        stats.put("migrationsRun", migrationsRun.get());
+        stats.put("migrationsSkipped", migrationsSkipped.get());
+        stats.put("averageMigrationMillis", averageMigrationMillis());
+        stats.put("estimatedMillisSaved", estimatedMillisSaved.get());
+        return stats;
+    }
+
+    private long averageMigrationMillis() {
+        long runs = migrationsRun.get();
+        return runs == 0 ? 0 : totalMigrationMillis.get() / runs;
+    }
+
+    private void recordApplied(String versionKey, long elapsedMillis) {
+        TenantSchemaVersion version = new TenantSchemaVersion();
+        version.setTenantUrl(versionKey);
+        version.setChangelogChecksum(changelogChecksum);
+        version.setMigratedAt(LocalDateTime.now());
+        version.setMigrationMillis(elapsedMillis);
+        schemaVersionRepository.save(version);
+        appliedChecksums.put(versionKey, changelogChecksum);
+    }
+
+    private String computeChangelogChecksum() {
+        // Only master.xml is hashed; if it ever <include>s other files, hash those too
+        try (InputStream in = new ClassPathResource(CHANGELOG_FILE).getInputStream()) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(in.readAllBytes()));
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot checksum changelog " + CHANGELOG_FILE, e);
+        }
+    }
+
+    private void migrate(String url, String username, String password, String driverClass, String schemaName) {
         try {
             String dbName = extractDatabaseName(url);
             String serverUrl = extractServerUrl(url, driverClass);
@@ -37,14 +170,16 @@ public class LiquibaseService {
             // Step 1: Automated Database Creation (The Container)
             // ────────────────────────────────────────────────────────────────
             // We connect to the "Server Root" to run CREATE DATABASE
-            try (HikariDataSource rootDs = createTemporaryDataSource(serverUrl, driverClass, username, password);
-                 Connection rootConn = rootDs.getConnection();
-                 Statement stmt = rootConn.createStatement()) {
-
-                if (isPostgres(driverClass)) {
-                    createPostgresDatabase(rootConn, stmt, dbName);
-                } else {
-                    createMySQLDatabase(stmt, dbName);
+            // Embedded (H2) databases are created on first connect, so there is no server root
+            if (!isEmbedded(url)) {
+                try (Connection rootConn = adminDataSource(serverUrl, driverClass, username, password).getConnection();
+                     Statement stmt = rootConn.createStatement()) {
+
+                    if (isPostgres(driverClass)) {
+                        createPostgresDatabase(rootConn, stmt, dbName);
+                    } else {
+                        createMySQLDatabase(stmt, dbName);
+                    }
                 }
             }
 
@@ -52,17 +187,35 @@ public class LiquibaseService {
             // Step 2: Liquibase Schema Migration (The Tables)
             // ────────────────────────────────────────────────────────────────
             // Now we connect to the newly created specific database
-            try (HikariDataSource tenantDs = createTemporaryDataSource(url, driverClass, username, password);
-                 Connection conn = tenantDs.getConnection()) {
+            DriverManagerDataSource tenantDs = new DriverManagerDataSource(url, username, password);
+            tenantDs.setDriverClassName(driverClass);
+            try (Connection conn = tenantDs.getConnection()) {
+
+                if (schemaName != null) {
+                    createTenantSchema(conn, driverClass, schemaName);
+                    // Raw <sql> changesets use unqualified names, so the session must be in the schema too
+                    TenantSchemaDataSource.selectSchema(conn, schemaName, driverClass);
+                }
 
                 Database database = DatabaseFactory.getInstance()
                         .findCorrectDatabaseImplementation(new JdbcConnection(conn));
+                if (schemaName != null) {
+                    // Tables and the DATABASECHANGELOG bookkeeping both live in the tenant's schema,
+                    // so each schema tracks its own migration history
+                    if (TenantSchemaDataSource.usesCatalogAsSchema(driverClass)) {
+                        database.setDefaultCatalogName(schemaName);
+                        database.setLiquibaseCatalogName(schemaName);
+                    } else {
+                        database.setDefaultSchemaName(schemaName);
+                        database.setLiquibaseSchemaName(schemaName);
+                    }
+                }
 
                 Liquibase liquibase = new Liquibase(CHANGELOG_FILE, new ClassLoaderResourceAccessor(), database);
 
                 log.info("Running Liquibase migration on: {}", url);
                 liquibase.update("");
-                log.info("Successfully provisioned tenant: {}", dbName);
+                log.info("Successfully provisioned tenant: {}", schemaName == null ? dbName : dbName + "." + schemaName);
             }
 
         } catch (Exception e) {
@@ -71,6 +224,18 @@ public class LiquibaseService {
         }
     }
 
+    private void createTenantSchema(Connection conn, String driverClass, String schemaName) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            if (TenantSchemaDataSource.usesCatalogAsSchema(driverClass)) {
+                // In MySQL a schema is a database on the shared server
+                createMySQLDatabase(stmt, schemaName);
+            } else {
+                stmt.executeUpdate("CREATE SCHEMA IF NOT EXISTS " + schemaName);
+                log.info("Schema '{}' is ready.", schemaName);
+            }
+        }
+    }
+
     private void createMySQLDatabase(Statement stmt, String dbName) throws SQLException {
         // MySQL allows "IF NOT EXISTS"
         String sql = "CREATE DATABASE IF NOT EXISTS `" + dbName + "` CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci";
@@ -99,17 +264,29 @@ public class LiquibaseService {
         }
     }
 
-    private HikariDataSource createTemporaryDataSource(String url, String driver, String user, String pass) {
-        HikariDataSource ds = new HikariDataSource();
-        ds.setJdbcUrl(url);
-        ds.setDriverClassName(driver);
-        ds.setUsername(user);
-        ds.setPassword(pass);
+    private HikariDataSource adminDataSource(String serverUrl, String driver, String user, String pass) {
+        return adminDataSources.computeIfAbsent(new AdminKey(serverUrl, user, pass), key -> {
+            HikariDataSource ds = new HikariDataSource();
+            ds.setJdbcUrl(serverUrl);
+            ds.setDriverClassName(driver);
+            ds.setUsername(user);
+            ds.setPassword(pass);
+            ds.setPoolName("HikariPool-admin-" + extractServerKey(serverUrl));
 
-        // Use a tiny, short-lived pool for the automation task
-        ds.setMaximumPoolSize(1);
-        ds.setConnectionTimeout(10000);
-        return ds;
+            // A single connection per server; CREATE DATABASE is quick, so concurrent
+            // provisioning jobs on one host queue for it rather than opening more
+            ds.setMaximumPoolSize(1);
+            ds.setMinimumIdle(0);
+            ds.setIdleTimeout(60000);
+            ds.setConnectionTimeout(30000);
+            return ds;
+        });
+    }
+
+    @PreDestroy
+    public void closeAdminConnections() {
+        adminDataSources.values().forEach(HikariDataSource::close);
+        adminDataSources.clear();
     }
 
     private String extractDatabaseName(String url) {
@@ -124,7 +301,23 @@ public class LiquibaseService {
         return driver.contains("postgresql") ? base + "postgres" : base;
     }
 
+    /**
+     * host:port of the database server behind a JDBC url, used to cap concurrent work per server.
+     */
+    public String extractServerKey(String url) {
+        String afterScheme = url.contains("//") ? url.substring(url.indexOf("//") + 2) : url;
+        int end = afterScheme.indexOf('/');
+        return end >= 0 ? afterScheme.substring(0, end) : afterScheme;
+    }
+
+    private boolean isEmbedded(String url) {
+        return url != null && url.startsWith("jdbc:h2:");
+    }
+
     private boolean isPostgres(String driver) {
         return driver != null && driver.toLowerCase().contains("postgresql");
     }
+
+    private record AdminKey(String serverUrl, String username, String password) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,192 @@
+package com.school.multi_tenant_workflow.service;
+
+import com.school.multi_tenant_workflow.model.MigrationState;
+import com.school.multi_tenant_workflow.model.TenantConfig;
+import com.school.multi_tenant_workflow.model.TenantMigrationStatus;
+import com.school.multi_tenant_workflow.repository.TenantMigrationStatusRepository;
+import com.school.multi_tenant_workflow.repository.TenantRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Rolls the current db/changelog/master.xml out to every tenant in parallel.
+ * Each database server gets its own concurrency limit so a shared MySQL/Postgres
+ * host is never hit by more than a few migrations at once. Per-tenant progress is
+ * stored in tenant_migration_status, so an interrupted rollout resumes where it stopped.
+ */
+@Service
+public class MigrationOrchestrator {
+
+    private static final Logger log = LoggerFactory.getLogger(MigrationOrchestrator.class);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final TenantRepository tenantRepository;
+    private final TenantMigrationStatusRepository statusRepository;
+    private final LiquibaseService liquibaseService;
+    private final int perServerConcurrency;
+    private final boolean resumeOnStartup;
+
+    private final Map<String, Semaphore> serverPermits = new ConcurrentHashMap<>();
+    private final AtomicBoolean rolloutRunning = new AtomicBoolean();
+
+    public MigrationOrchestrator(TenantRepository tenantRepository,
+                                 TenantMigrationStatusRepository statusRepository,
+                                 LiquibaseService liquibaseService,
+                                 @Value("${tenant.migration.per-server-concurrency:4}") int perServerConcurrency,
+                                 @Value("${tenant.migration.resume-on-startup:true}") boolean resumeOnStartup) {
+        this.tenantRepository = tenantRepository;
+        this.statusRepository = statusRepository;
+        this.liquibaseService = liquibaseService;
+        this.perServerConcurrency = perServerConcurrency;
+        this.resumeOnStartup = resumeOnStartup;
+    }
+
+    /**
+     * Starts a rollout in the background. Returns false if one is already running.
+     */
+    public boolean startRollout() {
+        if (!rolloutRunning.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread.ofVirtual().name("migration-rollout").start(() -> {
+            try {
+                rollout();
+            } catch (Exception e) {
+                log.error("Migration rollout aborted: {}", e.getMessage(), e);
+            } finally {
+                rolloutRunning.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Picks up a rollout that was interrupted by a restart (rows still PENDING or RUNNING).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedRollout() {
+        if (!resumeOnStartup) {
+            return;
+        }
+        String checksum = liquibaseService.getChangelogChecksum();
+        if (statusRepository.existsByChangelogChecksumAndStateIn(checksum,
+                EnumSet.of(MigrationState.PENDING, MigrationState.RUNNING))) {
+            log.info("Resuming interrupted migration rollout for changelog {}", checksum);
+            startRollout();
+        }
+    }
+
+    void rollout() {
+        String checksum = liquibaseService.getChangelogChecksum();
+        Map<Long, TenantMigrationStatus> statuses = statusRepository.findAll().stream()
+                .collect(Collectors.toMap(TenantMigrationStatus::getTenantId, Function.identity()));
+
+        // Tenants already DONE for this changelog are skipped; RUNNING rows left by a crash start over
+        List<TenantConfig> pending = new ArrayList<>();
+        for (TenantConfig tenant : tenantRepository.findAll()) {
+            TenantMigrationStatus status = statuses.get(tenant.getId());
+            if (status != null && checksum.equals(status.getChangelogChecksum())
+                    && status.getState() == MigrationState.DONE) {
+                continue;
+            }
+            if (status == null || !checksum.equals(status.getChangelogChecksum())) {
+                status = new TenantMigrationStatus();
+                status.setTenantId(tenant.getId());
+                status.setAttempts(0);
+            }
+            status.setTenantName(tenant.getName());
+            status.setChangelogChecksum(checksum);
+            status.setState(MigrationState.PENDING);
+            status.setUpdatedAt(LocalDateTime.now());
+            statusRepository.save(status);
+            pending.add(tenant);
+        }
+
+        log.info("Migration rollout {}: {} tenants pending", checksum, pending.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (TenantConfig tenant : pending) {
+                executor.submit(() -> migrateTenant(tenant, checksum));
+            }
+        }
+        log.info("Migration rollout {} finished", checksum);
+    }
+
+    private void migrateTenant(TenantConfig tenant, String checksum) {
+        Semaphore permits = serverPermits.computeIfAbsent(
+                liquibaseService.extractServerKey(tenant.getUrl()), key -> new Semaphore(perServerConcurrency));
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        // Everything after the permit is taken is guarded: a Master DB error here must neither
+        // leak the server's permit nor vanish inside the rollout executor's discarded Future
+        try {
+            TenantMigrationStatus status = statusRepository.findById(tenant.getId())
+                    .orElseThrow(() -> new IllegalStateException("No migration status for tenant " + tenant.getName()));
+            migrate(status, tenant);
+            status.setChangelogChecksum(checksum);
+            status.setUpdatedAt(LocalDateTime.now());
+            statusRepository.save(status);
+        } catch (RuntimeException e) {
+            log.error("Could not record migration of tenant {}", tenant.getName(), e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void migrate(TenantMigrationStatus status, TenantConfig tenant) {
+        try {
+            status.setState(MigrationState.RUNNING);
+            status.setAttempts(status.getAttempts() == null ? 1 : status.getAttempts() + 1);
+            status.setUpdatedAt(LocalDateTime.now());
+            statusRepository.save(status);
+
+            liquibaseService.runMigration(tenant.getUrl(), tenant.getUsername(),
+                    tenant.getPassword(), tenant.getDriverClass(), tenant.getSchemaName());
+
+            status.setState(MigrationState.DONE);
+            status.setLastError(null);
+        } catch (Exception e) {
+            log.warn("Migration failed for tenant {}: {}", tenant.getName(), e.getMessage());
+            status.setState(MigrationState.FAILED);
+            String message = String.valueOf(e.getMessage());
+            status.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        }
+    }
+
+    /**
+     * Per-state tenant counts for the current changelog.
+     */
+    public Map<String, Object> getProgress() {
+        String checksum = liquibaseService.getChangelogChecksum();
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("changelogChecksum", checksum);
+        progress.put("running", rolloutRunning.get());
+        progress.put("tenants", tenantRepository.count());
+        for (MigrationState state : MigrationState.values()) {
+            progress.put(state.name().toLowerCase(), statusRepository.countByChangelogChecksumAndState(checksum, state));
+        }
+        return progress;
+    }
+}
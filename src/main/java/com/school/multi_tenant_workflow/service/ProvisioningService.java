@@ -0,0 +1,231 @@
+package com.school.multi_tenant_workflow.service;
+
+import com.school.multi_tenant_workflow.config.TenantDataSourceManager;
+import com.school.multi_tenant_workflow.config.TenantRegistry;
+import com.school.multi_tenant_workflow.model.MigrationState;
+import com.school.multi_tenant_workflow.model.ProvisioningJob;
+import com.school.multi_tenant_workflow.model.TenantConfig;
+import com.school.multi_tenant_workflow.repository.ProvisioningJobRepository;
+import com.school.multi_tenant_workflow.repository.TenantRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Provisions new tenants as background jobs so a request returns as soon as the job is queued.
+ * Each job creates the database (or schema), runs the changelog, saves the tenant to the
+ * Master DB and registers it; its pool opens lazily on first use like any other tenant.
+ * Jobs run on virtual threads behind a node-wide worker limit and a per-database-host limit,
+ * and their state is kept in provisioning_job so clients can poll a job or a whole batch.
+ */
+@Service
+public class ProvisioningService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProvisioningService.class);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final ProvisioningJobRepository jobRepository;
+    private final TenantRepository tenantRepository;
+    private final TenantRegistry tenantRegistry;
+    private final TenantDataSourceManager tenantDataSourceManager;
+    private final LiquibaseService liquibaseService;
+    private final Semaphore workerPermits;
+    private final int perHostConcurrency;
+
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ProvisioningService(ProvisioningJobRepository jobRepository,
+                               TenantRepository tenantRepository,
+                               TenantRegistry tenantRegistry,
+                               TenantDataSourceManager tenantDataSourceManager,
+                               LiquibaseService liquibaseService,
+                               @Value("${tenant.provisioning.workers:16}") int workers,
+                               @Value("${tenant.provisioning.per-host-concurrency:4}") int perHostConcurrency) {
+        this.jobRepository = jobRepository;
+        this.tenantRepository = tenantRepository;
+        this.tenantRegistry = tenantRegistry;
+        this.tenantDataSourceManager = tenantDataSourceManager;
+        this.liquibaseService = liquibaseService;
+        this.workerPermits = new Semaphore(Math.max(1, workers));
+        this.perHostConcurrency = Math.max(1, perHostConcurrency);
+    }
+
+    /**
+     * Queues one job per tenant and returns the batch id immediately.
+     * The whole batch is rejected up front if a name is missing, repeated or already registered.
+     * Callers must have cleared TenantContext so the jobs are recorded in the Master DB.
+     */
+    public String submit(List<TenantConfig> configs) {
+        validate(configs);
+
+        String batchId = UUID.randomUUID().toString();
+        Map<Long, TenantConfig> queued = new LinkedHashMap<>();
+        for (TenantConfig config : configs) {
+            ProvisioningJob job = new ProvisioningJob();
+            job.setBatchId(batchId);
+            job.setTenantName(config.getName());
+            job.setServerKey(liquibaseService.extractServerKey(config.getUrl()));
+            job.setState(MigrationState.PENDING);
+            job.setSubmittedAt(LocalDateTime.now());
+            queued.put(jobRepository.save(job).getId(), config);
+        }
+
+        // Start only once every row exists, so the first progress poll already sees the whole batch
+        queued.forEach((jobId, config) -> executor.submit(() -> runJob(jobId, config)));
+        log.info("Provisioning batch {}: {} tenants queued", batchId, queued.size());
+        return batchId;
+    }
+
+    private void validate(List<TenantConfig> configs) {
+        if (configs == null || configs.isEmpty()) {
+            throw new IllegalArgumentException("At least one tenant is required");
+        }
+        Set<String> names = new HashSet<>();
+        for (TenantConfig config : configs) {
+            String name = config.getName();
+            if (name == null || name.isBlank() || config.getUrl() == null || config.getDriverClass() == null) {
+                throw new IllegalArgumentException("Every tenant needs a name, url and driverClass");
+            }
+            if (!names.add(name) || tenantRegistry.findByName(name).isPresent()) {
+                throw new IllegalArgumentException("Tenant already exists or is listed twice: " + name);
+            }
+            // An empty form field means a dedicated database
+            if (config.getSchemaName() != null && config.getSchemaName().isBlank()) {
+                config.setSchemaName(null);
+            }
+            config.setId(null);
+        }
+    }
+
+    private void runJob(Long jobId, TenantConfig config) {
+        // Host permit first: a job waiting on a busy host must not hold one of the node's workers
+        Semaphore host = hostPermits.computeIfAbsent(
+                liquibaseService.extractServerKey(config.getUrl()), key -> new Semaphore(perHostConcurrency));
+        try {
+            host.acquire();
+            try {
+                workerPermits.acquire();
+            } catch (InterruptedException e) {
+                host.release();
+                throw e;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        // Everything after the permits are taken is guarded: a Master DB error here must neither
+        // leak the permits nor vanish inside the executor, which nobody joins
+        try {
+            ProvisioningJob job = jobRepository.findById(jobId)
+                    .orElseThrow(() -> new IllegalStateException("Provisioning job " + jobId + " not found"));
+            provision(job, config);
+            job.setFinishedAt(LocalDateTime.now());
+            jobRepository.save(job);
+        } catch (RuntimeException e) {
+            log.error("Could not record provisioning job {} for tenant {}", jobId, config.getName(), e);
+        } finally {
+            workerPermits.release();
+            host.release();
+        }
+    }
+
+    private void provision(ProvisioningJob job, TenantConfig config) {
+        try {
+            job.setState(MigrationState.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+            jobRepository.save(job);
+
+            // Another batch may have claimed the name since this one was validated
+            if (tenantRegistry.findByName(config.getName()).isPresent()) {
+                throw new IllegalStateException("Tenant already exists: " + config.getName());
+            }
+            liquibaseService.runMigration(config.getUrl(), config.getUsername(), config.getPassword(),
+                    config.getDriverClass(), config.getSchemaName());
+
+            TenantConfig saved = tenantRepository.save(config);
+            tenantDataSourceManager.registerTenant(saved);
+            // Bump the registry version so this node and its peers pick up the new tenant
+            tenantRegistry.invalidate();
+
+            job.setTenantId(saved.getId());
+            job.setState(MigrationState.DONE);
+            job.setLastError(null);
+        } catch (Exception e) {
+            log.warn("Provisioning failed for tenant {}: {}", config.getName(), e.getMessage());
+            job.setState(MigrationState.FAILED);
+            job.setLastError(truncate(e.getMessage()));
+        }
+    }
+
+    /**
+     * Credentials are only held in memory until a job runs, so jobs cut off by a restart
+     * cannot be resumed; they are failed with a message asking for a resubmit.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterruptedJobs() {
+        List<ProvisioningJob> interrupted = jobRepository.findByStateIn(
+                EnumSet.of(MigrationState.PENDING, MigrationState.RUNNING));
+        for (ProvisioningJob job : interrupted) {
+            job.setState(MigrationState.FAILED);
+            job.setLastError("Interrupted by a restart; resubmit the tenant");
+            job.setFinishedAt(LocalDateTime.now());
+        }
+        if (!interrupted.isEmpty()) {
+            jobRepository.saveAll(interrupted);
+            log.info("Marked {} interrupted provisioning jobs as failed", interrupted.size());
+        }
+    }
+
+    public Optional<ProvisioningJob> getJob(Long jobId) {
+        return jobRepository.findById(jobId);
+    }
+
+    /**
+     * Per-state job counts for a batch, plus each job's state.
+     */
+    public Map<String, Object> getBatchProgress(String batchId) {
+        List<ProvisioningJob> jobs = jobRepository.findByBatchIdOrderById(batchId);
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("batchId", batchId);
+        progress.put("total", jobs.size());
+        for (MigrationState state : MigrationState.values()) {
+            progress.put(state.name().toLowerCase(), jobs.stream().filter(job -> job.getState() == state).count());
+        }
+        List<Map<String, Object>> summaries = new ArrayList<>(jobs.size());
+        for (ProvisioningJob job : jobs) {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("jobId", job.getId());
+            summary.put("tenant", job.getTenantName());
+            summary.put("state", job.getState());
+            summary.put("error", job.getLastError());
+            summaries.add(summary);
+        }
+        progress.put("jobs", summaries);
+        return progress;
+    }
+
+    private static String truncate(String message) {
+        String text = String.valueOf(message);
+        return text.length() > MAX_ERROR_LENGTH ? text.substring(0, MAX_ERROR_LENGTH) : text;
+    }
+}
@@ -0,0 +1,147 @@
+package com.school.multi_tenant_workflow.service;
+
+import com.school.multi_tenant_workflow.config.TenantDataSourceManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the same query against every registered tenant in parallel on virtual threads and
+ * merges the answers as they arrive. Each tenant has its own timeout; schools that fail or
+ * time out are reported alongside the partial aggregate instead of failing the whole call,
+ * so a dashboard over many schools takes about as long as its slowest reachable school.
+ */
+@Service
+public class TenantScatterGatherService {
+
+    private static final Logger log = LoggerFactory.getLogger(TenantScatterGatherService.class);
+    private static final long POLL_MILLIS = 20;
+
+    @FunctionalInterface
+    public interface TenantQuery<T> {
+        T run(String tenantName, Connection connection) throws SQLException;
+    }
+
+    /**
+     * Folds one tenant's answer into the accumulator. Always called from the gathering
+     * thread, so the accumulator does not need to be thread-safe.
+     */
+    @FunctionalInterface
+    public interface TenantMerge<A, T> {
+        void merge(A accumulator, String tenantName, T answer);
+    }
+
+    public record Result<A>(A aggregate,
+                            int tenantsQueried,
+                            int tenantsAnswered,
+                            Map<String, String> failedTenants,
+                            List<String> timedOutTenants,
+                            long elapsedMillis) {
+        public boolean isPartial() {
+            return tenantsAnswered < tenantsQueried;
+        }
+    }
+
+    private final TenantDataSourceManager tenantDataSourceManager;
+    private final int maxConcurrency;
+    private final long tenantTimeoutMillis;
+
+    public TenantScatterGatherService(TenantDataSourceManager tenantDataSourceManager,
+                                      @Value("${scatter.max-concurrency:256}") int maxConcurrency,
+                                      @Value("${scatter.tenant-timeout-ms:5000}") long tenantTimeoutMillis) {
+        this.tenantDataSourceManager = tenantDataSourceManager;
+        this.maxConcurrency = maxConcurrency;
+        this.tenantTimeoutMillis = tenantTimeoutMillis;
+    }
+
+    public <T, A> Result<A> scatterGather(TenantQuery<T> query, A accumulator, TenantMerge<A, T> merge) {
+        List<String> tenants = tenantDataSourceManager.getRegisteredTenantNames();
+        long started = System.nanoTime();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(tenantTimeoutMillis);
+
+        Semaphore permits = new Semaphore(maxConcurrency);
+        // The timeout clock starts when a tenant's query gets a permit, not while it queues
+        Map<String, Long> runningSince = new ConcurrentHashMap<>();
+        Map<Future<T>, String> pending = new HashMap<>();
+        Map<String, String> failed = new LinkedHashMap<>();
+        List<String> timedOut = new ArrayList<>();
+        int answered = 0;
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        CompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        try {
+            for (String tenant : tenants) {
+                Future<T> future = completion.submit(() -> {
+                    permits.acquire();
+                    runningSince.put(tenant, System.nanoTime());
+                    try (Connection connection = tenantDataSourceManager.openConnection(tenant)) {
+                        return query.run(tenant, connection);
+                    } finally {
+                        runningSince.remove(tenant);
+                        permits.release();
+                    }
+                });
+                pending.put(future, tenant);
+            }
+
+            while (!pending.isEmpty()) {
+                Future<T> done = completion.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (done != null) {
+                    String tenant = pending.remove(done);
+                    if (tenant != null) {
+                        try {
+                            merge.merge(accumulator, tenant, done.get());
+                            answered++;
+                        } catch (ExecutionException e) {
+                            failed.put(tenant, String.valueOf(e.getCause().getMessage()));
+                        } catch (CancellationException ignored) {
+                            // Already counted as timed out
+                        }
+                    }
+                }
+
+                long now = System.nanoTime();
+                for (Iterator<Map.Entry<Future<T>, String>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<Future<T>, String> entry = it.next();
+                    Long since = runningSince.get(entry.getValue());
+                    if (since != null && now - since > timeoutNanos) {
+                        entry.getKey().cancel(true);
+                        timedOut.add(entry.getValue());
+                        it.remove();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            timedOut.addAll(pending.values());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        if (!failed.isEmpty() || !timedOut.isEmpty()) {
+            log.warn("Scatter-gather over {} tenants: {} failed, {} timed out", tenants.size(), failed.size(), timedOut.size());
+        }
+        return new Result<>(accumulator, tenants.size(), answered, failed, timedOut, elapsedMillis);
+    }
+}
@@ -0,0 +1,71 @@
+package com.school.multi_tenant_workflow.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TenantBulkheadTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void noisyTenantIsTurnedAwayWhileOthersStillGetIn() throws Exception {
+        // Node fits 4 requests; a tenant alone may use 3 of them
+        TenantBulkhead bulkhead = new TenantBulkhead(registry, 4, 3, 1, 100, "");
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(bulkhead.acquire("noisy")).isEqualTo(TenantBulkhead.Admission.ADMITTED);
+        }
+        // Over its own limit: one request may queue, it times out, the next is refused outright
+        assertThat(bulkhead.acquire("noisy")).isEqualTo(TenantBulkhead.Admission.QUEUE_TIMEOUT);
+
+        assertThat(bulkhead.acquire("quiet")).isEqualTo(TenantBulkhead.Admission.ADMITTED);
+        // Node is full and noisy holds more than its half share: rejected without waiting
+        long started = System.nanoTime();
+        assertThat(bulkhead.acquire("noisy")).isEqualTo(TenantBulkhead.Admission.OVER_SHARE);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(50);
+
+        assertThat(registry.get("tenant.bulkhead.rejections").tag("tenant", "noisy").counters()).hasSize(2);
+    }
+
+    @Test
+    void freedSlotGoesToTheTenantFurthestBelowItsWeightedShare() throws Exception {
+        TenantBulkhead bulkhead = new TenantBulkhead(registry, 4, 2, 5, 5_000, "big:3");
+        bulkhead.acquire("other");
+        bulkhead.acquire("other");
+        bulkhead.acquire("big");
+        bulkhead.acquire("big");
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // big is at its own limit but under its weighted share, so it queues
+            CompletableFuture<TenantBulkhead.Admission> bigWaiter = CompletableFuture.supplyAsync(() -> acquire(bulkhead, "big"), executor);
+            Thread.sleep(50);
+            // small has nothing in flight, so it may queue on a full node
+            CompletableFuture<TenantBulkhead.Admission> smallWaiter = CompletableFuture.supplyAsync(() -> acquire(bulkhead, "small"), executor);
+            Thread.sleep(50);
+
+            // big queued first, but small has 0 in flight per unit of weight vs big's 1/3
+            bulkhead.release("big");
+            assertThat(smallWaiter.get(1, TimeUnit.SECONDS)).isEqualTo(TenantBulkhead.Admission.ADMITTED);
+            assertThat(bigWaiter).isNotDone();
+
+            bulkhead.release("other");
+            assertThat(bigWaiter.get(1, TimeUnit.SECONDS)).isEqualTo(TenantBulkhead.Admission.ADMITTED);
+        }
+        assertThat(bulkhead.getInFlight()).isEqualTo(4);
+    }
+
+    private static TenantBulkhead.Admission acquire(TenantBulkhead bulkhead, String tenant) {
+        try {
+            return bulkhead.acquire(tenant);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
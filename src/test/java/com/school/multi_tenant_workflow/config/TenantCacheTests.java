@@ -0,0 +1,57 @@
+package com.school.multi_tenant_workflow.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TenantCacheTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TenantCache cache = new TenantCache(registry, 1_000, 300);
+
+    @Test
+    void keysArePartitionedByTenantAndInvalidatedPerTenant() {
+        AtomicInteger loads = new AtomicInteger();
+
+        // Same region and key for both schools: each must get its own students
+        assertThat(page("school_a", loads)).containsExactly("school_a:1");
+        assertThat(page("school_b", loads)).containsExactly("school_b:2");
+        assertThat(page("school_a", loads)).containsExactly("school_a:1");
+        assertThat(page("school_b", loads)).containsExactly("school_b:2");
+        assertThat(loads).hasValue(2);
+
+        // A student was saved in school_a: only school_a reloads
+        cache.invalidate("school_a", "students");
+        assertThat(page("school_a", loads)).containsExactly("school_a:3");
+        assertThat(page("school_b", loads)).containsExactly("school_b:2");
+        assertThat(loads).hasValue(3);
+
+        assertThat(lookups("school_a", "hit")).isEqualTo(1);
+        assertThat(lookups("school_a", "miss")).isEqualTo(2);
+        assertThat(lookups("school_b", "hit")).isEqualTo(2);
+        assertThat(lookups("school_b", "miss")).isEqualTo(1);
+    }
+
+    @Test
+    void loadsUncachedWithoutATenant() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("students", "first-page", () -> List.of(loads.incrementAndGet()));
+        cache.get("students", "first-page", () -> List.of(loads.incrementAndGet()));
+        assertThat(loads).hasValue(2);
+    }
+
+    private List<String> page(String tenant, AtomicInteger loads) {
+        return TenantContext.callWithTenant(tenant, () ->
+                cache.get("students", "first-page", () -> List.of(tenant + ":" + loads.incrementAndGet())));
+    }
+
+    private double lookups(String tenant, String result) {
+        return registry.get("tenant.cache.lookups")
+                .tags("tenant", tenant, "region", "students", "result", result)
+                .counter().count();
+    }
+}
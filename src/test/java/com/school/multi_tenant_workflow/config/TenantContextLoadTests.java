@@ -0,0 +1,89 @@
+package com.school.multi_tenant_workflow.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs many concurrent requests that block on JDBC (simulated with a short sleep) on
+ * platform and virtual threads, and checks each keeps its own tenant across the hop onto
+ * the executor thread and that no binding is left behind on a pooled thread. Throughput of
+ * the two modes is compared by BlockingRequestBenchmark in benchmarks/, not asserted here.
+ */
+class TenantContextLoadTests {
+
+    private static final int REQUESTS = 2_000;
+    private static final int PLATFORM_THREADS = 50;   // A typical servlet worker pool
+    private static final long JDBC_ROUND_TRIP_MILLIS = 2;
+
+    @Test
+    void scopedBindingIsRestoredAndNests() {
+        TenantContext.runWithTenant("school_a", () -> {
+            assertThat(TenantContext.getCurrentTenant()).isEqualTo("school_a");
+            String inner = TenantContext.callWithTenant("school_b", TenantContext::getCurrentTenant);
+            assertThat(inner).isEqualTo("school_b");
+            assertThat(TenantContext.getCurrentTenant()).isEqualTo("school_a");
+        });
+        assertThat(TenantContext.getCurrentTenant()).isNull();
+    }
+
+    @Test
+    void propagatesTenantIntoCompletableFutures() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            String seen = TenantContext.callWithTenant("school_a", () ->
+                    CompletableFuture.supplyAsync(TenantContext::getCurrentTenant, TenantContext.propagating(executor)))
+                    .get();
+            assertThat(seen).isEqualTo("school_a");
+        }
+    }
+
+    @Test
+    void tenantSurvivesTheHopOntoPlatformAndVirtualThreads() throws Exception {
+        ExecutorService platform = Executors.newFixedThreadPool(PLATFORM_THREADS);
+        assertThat(runLoad(platform)).hasValue(0);
+        // Pooled threads are reused by the next request; the binding must be gone again
+        List<Future<String>> leftovers = platform.invokeAll(
+                Collections.nCopies(PLATFORM_THREADS * 2, TenantContext::getCurrentTenant));
+        for (Future<String> leftover : leftovers) {
+            assertThat(leftover.get()).isNull();
+        }
+        platform.shutdown();
+
+        try (ExecutorService virtual = Executors.newVirtualThreadPerTaskExecutor()) {
+            assertThat(runLoad(virtual)).hasValue(0);
+        }
+    }
+
+    private AtomicInteger runLoad(ExecutorService executor) {
+        AtomicInteger wrongTenant = new AtomicInteger();
+        List<CompletableFuture<Void>> requests = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            String tenant = "school_" + (i % 100);
+            requests.add(TenantContext.callWithTenant(tenant, () -> CompletableFuture.runAsync(() -> {
+                blockOnJdbc();
+                if (!tenant.equals(TenantContext.getCurrentTenant())) {
+                    wrongTenant.incrementAndGet();
+                }
+            }, TenantContext.propagating(executor))));
+        }
+        CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).join();
+        return wrongTenant;
+    }
+
+    private static void blockOnJdbc() {
+        try {
+            Thread.sleep(JDBC_ROUND_TRIP_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
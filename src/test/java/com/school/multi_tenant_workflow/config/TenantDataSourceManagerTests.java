@@ -0,0 +1,175 @@
+package com.school.multi_tenant_workflow.config;
+
+import com.school.multi_tenant_workflow.model.TenantConfig;
+import com.school.multi_tenant_workflow.repository.TenantRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class TenantDataSourceManagerTests {
+
+    private final TenantRoutingDataSource routing = new TenantRoutingDataSource();
+    private final TenantDataSourceManager manager = new TenantDataSourceManager(routing, mock(TenantRepository.class),
+            new TenantMetrics(new SimpleMeterRegistry(), routing, 1.0), 500, 900_000, 30_000, 30, 5);
+
+    @AfterEach
+    void closePools() {
+        manager.getRegisteredTenantNames().forEach(manager::removeTenant);
+    }
+
+    @Test
+    void reAddingAnUnchangedConfigKeepsThePool() {
+        manager.addTenant(tenant("school_a", "jdbc:h2:mem:reload_a"));
+        DataSource pool = routing.getTenantDataSource("school_a");
+
+        // A fresh entity with the same settings, as select-tenant loads it from the Master DB
+        manager.addTenant(tenant("school_a", "jdbc:h2:mem:reload_a"));
+
+        assertThat(routing.getTenantDataSource("school_a")).isSameAs(pool);
+        assertThat(((HikariDataSource) pool).isClosed()).isFalse();
+        assertThat(manager.getPoolStatistics()).containsEntry("poolSwaps", 0L).containsEntry("activations", 1L);
+    }
+
+    @Test
+    void changedConfigSwapsThePoolAndDrainsTheOldOne() throws Exception {
+        manager.addTenant(tenant("school_a", "jdbc:h2:mem:swap_a"));
+        manager.addTenant(tenant("school_b", "jdbc:h2:mem:swap_b"));
+        HikariDataSource oldA = (HikariDataSource) routing.getTenantDataSource("school_a");
+        HikariDataSource oldB = (HikariDataSource) routing.getTenantDataSource("school_b");
+
+        try (Connection stuck = oldA.getConnection()) {
+            manager.addTenant(tenant("school_a", "jdbc:h2:mem:swap_a2"));
+            manager.addTenant(tenant("school_b", "jdbc:h2:mem:swap_b2"));
+
+            assertThat(routing.getTenantDataSource("school_a")).isNotSameAs(oldA);
+            assertThat(routing.getTenantDataSource("school_b")).isNotSameAs(oldB);
+            assertThat(manager.getPoolStatistics()).containsEntry("poolSwaps", 2L);
+
+            // school_a's old pool waits for its borrower; that must not hold up school_b's close
+            awaitTrue(oldB::isClosed);
+            assertThat(oldA.isClosed()).isFalse();
+        }
+        awaitTrue(oldA::isClosed);
+    }
+
+    @Test
+    void schemaTenantsShareOnePoolAndLandInTheirOwnSchema() throws Exception {
+        createSchemas("jdbc:h2:mem:shared_route", "school_a", "school_b");
+        manager.addTenant(schemaTenant("school_a", "jdbc:h2:mem:shared_route"));
+        manager.addTenant(schemaTenant("school_b", "jdbc:h2:mem:shared_route"));
+
+        TenantSchemaDataSource a = (TenantSchemaDataSource) routing.getTenantDataSource("school_a");
+        TenantSchemaDataSource b = (TenantSchemaDataSource) routing.getTenantDataSource("school_b");
+        assertThat(a.getTargetDataSource()).isSameAs(b.getTargetDataSource());
+        assertThat(manager.getPoolStatistics())
+                .containsEntry("sharedPools", 1)
+                .containsEntry("sharedPoolTenants", 2)
+                .containsEntry("openPools", 1)
+                .containsEntry("reservedConnections", 30);
+
+        // Alternate so the same pooled connection is handed from one school to the other
+        for (int i = 0; i < 3; i++) {
+            assertThat(schemaSeenBy("school_a")).isEqualTo("SCHOOL_A");
+            assertThat(schemaSeenBy("school_b")).isEqualTo("SCHOOL_B");
+        }
+    }
+
+    @Test
+    void movingBetweenDedicatedAndSharedReleasesTheRightPool() throws Exception {
+        createSchemas("jdbc:h2:mem:shared_move", "school_a");
+        manager.addTenant(tenant("school_a", "jdbc:h2:mem:move_a"));
+        HikariDataSource dedicated = (HikariDataSource) routing.getTenantDataSource("school_a");
+        assertThat(manager.getPoolStatistics()).containsEntry("reservedConnections", 10);
+
+        manager.addTenant(schemaTenant("school_a", "jdbc:h2:mem:shared_move"));
+        HikariDataSource shared = (HikariDataSource) ((TenantSchemaDataSource) routing.getTenantDataSource("school_a"))
+                .getTargetDataSource();
+        awaitTrue(dedicated::isClosed);
+        assertThat(manager.getPoolStatistics()).containsEntry("reservedConnections", 30).containsEntry("sharedPools", 1);
+
+        manager.addTenant(tenant("school_a", "jdbc:h2:mem:move_a"));
+        assertThat(routing.getTenantDataSource("school_a")).isInstanceOf(HikariDataSource.class);
+        awaitTrue(shared::isClosed);
+        assertThat(manager.getPoolStatistics())
+                .containsEntry("reservedConnections", 10)
+                .containsEntry("sharedPools", 0)
+                .containsEntry("sharedPoolTenants", 0);
+    }
+
+    @Test
+    void removingTheLastSchemaTenantDrainsTheSharedPool() throws Exception {
+        createSchemas("jdbc:h2:mem:shared_remove", "school_a", "school_b");
+        manager.addTenant(schemaTenant("school_a", "jdbc:h2:mem:shared_remove"));
+        manager.addTenant(schemaTenant("school_b", "jdbc:h2:mem:shared_remove"));
+        HikariDataSource shared = (HikariDataSource) ((TenantSchemaDataSource) routing.getTenantDataSource("school_a"))
+                .getTargetDataSource();
+
+        manager.removeTenant("school_a");
+        assertThat(shared.isClosed()).isFalse();
+        assertThat(manager.getPoolStatistics()).containsEntry("sharedPoolTenants", 1);
+
+        manager.removeTenant("school_b");
+        awaitTrue(shared::isClosed);
+        assertThat(manager.getPoolStatistics())
+                .containsEntry("sharedPools", 0)
+                .containsEntry("reservedConnections", 0);
+    }
+
+    private String schemaSeenBy(String tenant) throws SQLException {
+        String previous = TenantContext.getCurrentTenant();
+        TenantContext.setCurrentTenant(tenant);
+        try (Connection connection = routing.getConnection()) {
+            return connection.getSchema();
+        } finally {
+            if (previous == null) {
+                TenantContext.clear();
+            } else {
+                TenantContext.setCurrentTenant(previous);
+            }
+        }
+    }
+
+    private static void createSchemas(String url, String... schemas) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url + ";DB_CLOSE_DELAY=-1", "sa", "");
+             Statement statement = connection.createStatement()) {
+            for (String schema : schemas) {
+                statement.execute("CREATE SCHEMA IF NOT EXISTS " + schema);
+            }
+        }
+    }
+
+    static TenantConfig schemaTenant(String name, String url) {
+        TenantConfig config = tenant(name, url);
+        config.setSchemaName(name);
+        return config;
+    }
+
+    static TenantConfig tenant(String name, String url) {
+        TenantConfig config = new TenantConfig();
+        config.setName(name);
+        config.setUrl(url + ";DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setDriverClass("org.h2.Driver");
+        return config;
+    }
+
+    static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met within 10s").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
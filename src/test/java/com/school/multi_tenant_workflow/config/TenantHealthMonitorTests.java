@@ -0,0 +1,44 @@
+package com.school.multi_tenant_workflow.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class TenantHealthMonitorTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void opensAfterRepeatedFailuresThenLetsOneTrialThrough() {
+        TenantHealthMonitor monitor = new TenantHealthMonitor(new TenantRoutingDataSource(),
+                mock(TenantDataSourceManager.class), registry, 2, 500, 1);
+        AtomicLong now = new AtomicLong(1_000);
+        monitor.setClock(now::get);
+        SQLTransientConnectionException down = new SQLTransientConnectionException("Connection refused");
+
+        monitor.recordFailure("down", down);
+        assertThat(monitor.allowRequest("down")).isTrue();
+        monitor.recordFailure("down", down);
+        assertThat(monitor.getState("down")).isEqualTo(TenantHealthMonitor.State.OPEN);
+        assertThat(monitor.allowRequest("down")).isFalse();
+        assertThat(monitor.allowRequest("healthy")).isTrue();
+
+        now.addAndGet(499);
+        assertThat(monitor.allowRequest("down")).isFalse();
+        now.addAndGet(1);
+        // Half-open: the first caller is the trial, the rest keep failing fast until it reports back
+        assertThat(monitor.allowRequest("down")).isTrue();
+        assertThat(monitor.allowRequest("down")).isFalse();
+        monitor.recordSuccess("down");
+        assertThat(monitor.getState("down")).isEqualTo(TenantHealthMonitor.State.CLOSED);
+        assertThat(monitor.allowRequest("down")).isTrue();
+
+        assertThat(registry.get("tenant.health.rejections").tag("tenant", "down").counter().count()).isEqualTo(3);
+        assertThat(registry.get("tenant.health.transitions").tag("to", "OPEN").counter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,317 @@
+package com.school.multi_tenant_workflow.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class TenantRoutingDataSourceTests {
+
+    private static final int STABLE_TENANTS = 50;
+    private static final int CHURNED_TENANTS = 5_000;
+    private static final int READERS = 8;
+
+    @Test
+    void routesToTenantTableAndFallsBackToDefault() {
+        TenantRoutingDataSource routing = new TenantRoutingDataSource();
+        DataSource master = new NamedDataSource("master");
+        DataSource schoolA = new NamedDataSource("school_a");
+        routing.setDefaultTargetDataSource(master);
+        routing.putTenantDataSource("school_a", schoolA);
+
+        try {
+            TenantContext.setCurrentTenant("school_a");
+            assertThat(routing.determineTargetDataSource()).isSameAs(schoolA);
+
+            TenantContext.setCurrentTenant("unknown");
+            assertThat(routing.determineTargetDataSource()).isSameAs(master);
+
+            TenantContext.clear();
+            assertThat(routing.determineTargetDataSource()).isSameAs(master);
+
+            assertThat(routing.removeTenantDataSource("school_a")).isSameAs(schoolA);
+            TenantContext.setCurrentTenant("school_a");
+            assertThat(routing.determineTargetDataSource()).isSameAs(master);
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    @Test
+    void activatesUnknownTenantsThroughActivator() {
+        TenantRoutingDataSource routing = new TenantRoutingDataSource();
+        DataSource lazy = new NamedDataSource("lazy");
+        routing.setDefaultTargetDataSource(new NamedDataSource("master"));
+        routing.setTenantActivator(name -> {
+            routing.putTenantDataSource(name, lazy);
+            return lazy;
+        });
+
+        try {
+            TenantContext.setCurrentTenant("lazy");
+            assertThat(routing.determineTargetDataSource()).isSameAs(lazy);
+            assertThat(routing.getTenantCount()).isEqualTo(1);
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    @Test
+    void retriesOnceWhenThePoolWasEvictedBetweenLookupAndBorrow() throws Exception {
+        TenantRoutingDataSource routing = new TenantRoutingDataSource();
+        Connection reactivated = mock(Connection.class);
+        DataSource fresh = new AbstractDataSource() {
+            @Override
+            public Connection getConnection() {
+                return reactivated;
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) {
+                return reactivated;
+            }
+        };
+        // Evicted right after routing handed it out: by the time it is borrowed from it is closed
+        DataSource evicted = new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                routing.removeTenantDataSource("school_a");
+                throw new SQLException("HikariDataSource HikariPool-school_a has been closed.");
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return getConnection();
+            }
+        };
+        routing.putTenantDataSource("school_a", evicted);
+        routing.setTenantActivator(name -> {
+            routing.putTenantDataSource(name, fresh);
+            return fresh;
+        });
+
+        try {
+            TenantContext.setCurrentTenant("school_a");
+            assertThat(routing.getConnection()).isSameAs(reactivated);
+
+            // A pool that is still routed to failing is a real failure and is not retried
+            AtomicInteger attempts = new AtomicInteger();
+            routing.putTenantDataSource("school_a", new AbstractDataSource() {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    attempts.incrementAndGet();
+                    throw new SQLException("Connection refused");
+                }
+
+                @Override
+                public Connection getConnection(String username, String password) throws SQLException {
+                    return getConnection();
+                }
+            });
+            assertThatThrownBy(routing::getConnection).hasMessage("Connection refused");
+            assertThat(attempts).hasValue(1);
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    @Test
+    void readsRoundRobinOverReplicasAndFallBackToThePrimary() throws Exception {
+        TenantRoutingDataSource routing = new TenantRoutingDataSource();
+        ConnectionSource primary = new ConnectionSource();
+        ConnectionSource first = new ConnectionSource();
+        ConnectionSource second = new ConnectionSource();
+        routing.putTenantDataSource("school_a", primary, List.of(first, second));
+        DataSource reads = routing.getReadOnlyDataSource();
+
+        try {
+            TenantContext.setCurrentTenant("school_a");
+            assertThat(reads.getConnection()).isSameAs(first.connection);
+            assertThat(reads.getConnection()).isSameAs(second.connection);
+            assertThat(reads.getConnection()).isSameAs(first.connection);
+
+            // A failing replica is passed over, then skipped until its retry delay is up
+            first.down = true;
+            assertThat(reads.getConnection()).isSameAs(second.connection);
+            assertThat(reads.getConnection()).isSameAs(second.connection);
+            assertThat(reads.getConnection()).isSameAs(second.connection);
+            assertThat(first.attempts).hasValue(1);
+
+            // With no replica usable the primary serves the read
+            second.down = true;
+            assertThat(reads.getConnection()).isSameAs(primary.connection);
+            assertThat(routing.getReplicaStatistics())
+                    .containsEntry("replicaReads", 6L)
+                    .containsEntry("primaryReads", 1L)
+                    .containsEntry("replicaFailures", 2L);
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    @Test
+    void readYourWritesHoldsOnlyTheWritingSessionOnThePrimary() throws Exception {
+        TenantRoutingDataSource routing = new TenantRoutingDataSource();
+        routing.setReadYourWritesMillis(60_000);
+        ConnectionSource primary = new ConnectionSource();
+        ConnectionSource replica = new ConnectionSource();
+        routing.putTenantDataSource("school_a", primary, List.of(replica));
+        DataSource reads = routing.getReadOnlyDataSource();
+        AtomicLong writer = new AtomicLong();
+        AtomicLong colleague = new AtomicLong();
+
+        try {
+            TenantContext.setCurrentTenant("school_a");
+            TenantContext.bindWriteStamp(writer);
+            assertThat(routing.getConnection()).isSameAs(primary.connection);
+            assertThat(reads.getConnection()).isSameAs(primary.connection);
+
+            // Another teacher of the same school keeps reading from the replica
+            TenantContext.bindWriteStamp(colleague);
+            assertThat(reads.getConnection()).isSameAs(replica.connection);
+
+            // Background writes (no session) hold nobody's reads on the primary
+            TenantContext.bindWriteStamp(null);
+            assertThat(routing.getConnection()).isSameAs(primary.connection);
+            assertThat(reads.getConnection()).isSameAs(replica.connection);
+            TenantContext.bindWriteStamp(colleague);
+            assertThat(reads.getConnection()).isSameAs(replica.connection);
+            assertThat(colleague).hasValue(0);
+
+            // Once the window has passed the writer is back on the replica
+            TenantContext.bindWriteStamp(writer);
+            writer.set(System.currentTimeMillis() - 60_000);
+            assertThat(reads.getConnection()).isSameAs(replica.connection);
+        } finally {
+            TenantContext.bindWriteStamp(null);
+            TenantContext.clear();
+        }
+    }
+
+    @Test
+    void readersNeverSeeAnotherTenantWhileTenantsChurn() throws Exception {
+        TenantRoutingDataSource routing = new TenantRoutingDataSource();
+        NamedDataSource master = new NamedDataSource("master");
+        routing.setDefaultTargetDataSource(master);
+        for (int i = 0; i < STABLE_TENANTS; i++) {
+            routing.putTenantDataSource("stable_" + i, new NamedDataSource("stable_" + i));
+        }
+
+        AtomicBoolean churning = new AtomicBoolean(true);
+        AtomicLong lookups = new AtomicLong();
+        Queue<String> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(READERS + 1);
+
+        pool.submit(() -> {
+            await(start);
+            for (int i = 0; i < CHURNED_TENANTS; i++) {
+                String name = "churn_" + i;
+                routing.putTenantDataSource(name, new NamedDataSource(name));
+                if (i >= 100) {
+                    routing.removeTenantDataSource("churn_" + (i - 100));
+                }
+            }
+            churning.set(false);
+        });
+
+        for (int r = 0; r < READERS; r++) {
+            pool.submit(() -> {
+                await(start);
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    while (churning.get()) {
+                        String stable = "stable_" + random.nextInt(STABLE_TENANTS);
+                        TenantContext.setCurrentTenant(stable);
+                        String routed = ((NamedDataSource) routing.determineTargetDataSource()).name;
+                        if (!routed.equals(stable)) {
+                            failures.add(stable + " -> " + routed);
+                        }
+
+                        String churned = "churn_" + random.nextInt(CHURNED_TENANTS);
+                        TenantContext.setCurrentTenant(churned);
+                        routed = ((NamedDataSource) routing.determineTargetDataSource()).name;
+                        if (!routed.equals(churned) && !routed.equals(master.name)) {
+                            failures.add(churned + " -> " + routed);
+                        }
+                        lookups.addAndGet(2);
+                    }
+                } finally {
+                    TenantContext.clear();
+                }
+            });
+        }
+
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(failures).isEmpty();
+        assertThat(lookups.get()).isPositive();
+        assertThat(routing.getTenantCount()).isEqualTo(STABLE_TENANTS + 100);
+        assertThat(routing.getLastAccessTimes()).containsKey("stable_0");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class ConnectionSource extends AbstractDataSource {
+        private final Connection connection = mock(Connection.class);
+        private final AtomicInteger attempts = new AtomicInteger();
+        private volatile boolean down;
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                attempts.incrementAndGet();
+                throw new SQLException("Connection refused");
+            }
+            return connection;
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+
+    private static final class NamedDataSource extends AbstractDataSource {
+        private final String name;
+
+        private NamedDataSource(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Connection getConnection() {
+            throw new UnsupportedOperationException(name);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            throw new UnsupportedOperationException(name);
+        }
+    }
+}
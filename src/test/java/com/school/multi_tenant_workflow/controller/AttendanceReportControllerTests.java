@@ -0,0 +1,55 @@
+package com.school.multi_tenant_workflow.controller;
+
+import com.school.multi_tenant_workflow.config.TenantRegistry;
+import com.school.multi_tenant_workflow.model.TenantConfig;
+import com.school.multi_tenant_workflow.repository.AttendanceRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpSession;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class AttendanceReportControllerTests {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 9, 1);
+
+    private final AttendanceRollupRepository rollupRepository = mock(AttendanceRollupRepository.class);
+    private final TenantRegistry tenantRegistry = mock(TenantRegistry.class);
+    private final AttendanceReportController controller = new AttendanceReportController(rollupRepository, tenantRegistry);
+
+    @Test
+    void unknownTenantsGet404WithoutTouchingAnyDatabase() {
+        when(tenantRegistry.findByName("school_a")).thenReturn(Optional.empty());
+        MockHttpSession session = new MockHttpSession();
+
+        assertThat(controller.byStudent(YearMonth.from(DAY), null, "school_a", session).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(controller.daily(DAY, null, "school_a", session).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(controller.rebuild("school_a", session).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        verifyNoInteractions(rollupRepository);
+    }
+
+    @Test
+    void registeredTenantsAreServed() {
+        TenantConfig schoolA = new TenantConfig();
+        schoolA.setName("school_a");
+        when(tenantRegistry.findByName("school_a")).thenReturn(Optional.of(schoolA));
+        when(rollupRepository.dailyTotals(DAY, DAY)).thenReturn(List.of());
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute("CURRENT_TENANT_NAME", "school_a");
+
+        assertThat(controller.daily(DAY, null, null, session).getStatusCode()).isEqualTo(HttpStatus.OK);
+        verify(rollupRepository).dailyTotals(DAY, DAY);
+        assertThat(controller.daily(DAY, null, null, new MockHttpSession()).getStatusCode())
+                .isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+}
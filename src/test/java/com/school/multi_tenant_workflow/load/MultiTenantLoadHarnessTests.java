@@ -0,0 +1,363 @@
+package com.school.multi_tenant_workflow.load;
+
+import com.school.multi_tenant_workflow.config.TenantDataSourceManager;
+import com.school.multi_tenant_workflow.config.TenantRegistry;
+import com.school.multi_tenant_workflow.model.MigrationState;
+import com.school.multi_tenant_workflow.model.TenantConfig;
+import com.school.multi_tenant_workflow.service.ProvisioningService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end load harness: the full app on an embedded H2 master registry plus a generated
+ * fleet of H2 tenant databases, half in MySQL and half in PostgreSQL compatibility mode.
+ * Tenants are provisioned as one bulk job batch (so LiquibaseService builds each schema), then
+ * virtual users drive a weighted mix of select-tenant, workspace and submit-attendance
+ * requests. Reports throughput, p50/p99 latency per request type, open tenant connections
+ * and heap use.
+ * <p>
+ * Opt-in, as a 1,000-tenant run takes minutes:
+ * <pre>
+ * mvn test -Dtest=MultiTenantLoadHarnessTests -Dloadtest=true \
+ *     -Dloadtest.tenants=1000 -Dloadtest.users=64 -Dloadtest.requests=20000 \
+ *     -Dloadtest.mix=select:1,workspace:6,attendance:3
+ * </pre>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:master_control_db;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.school.multi_tenant_workflow=WARN",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.liquibase=WARN",
+        "logging.level.com.zaxxer.hikari=WARN",
+        "tenant.migration.resume-on-startup=false"
+})
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class MultiTenantLoadHarnessTests {
+
+    private static final int TENANTS = Integer.getInteger("loadtest.tenants", 1_000);
+    private static final int STUDENTS_PER_TENANT = Integer.getInteger("loadtest.students-per-tenant", 20);
+    private static final int USERS = Integer.getInteger("loadtest.users", 64);
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 20_000);
+    private static final Pattern BATCH_ID = Pattern.compile("\"batchId\":\"([^\"]+)\"");
+    private static final String MIX = System.getProperty("loadtest.mix", "select:1,workspace:6,attendance:3");
+    private static final Duration PROVISIONING_TIMEOUT =
+            Duration.ofSeconds(Long.getLong("loadtest.provisioning-timeout-seconds", 600));
+
+    private static final String[] STATUSES = {"Present", "Absent", "OD"};
+
+    enum Operation { SELECT, WORKSPACE, ATTENDANCE }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TenantRegistry tenantRegistry;
+
+    @Autowired
+    private TenantDataSourceManager tenantDataSourceManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ProvisioningService provisioningService;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    @DynamicPropertySource
+    static void harnessProperties(DynamicPropertyRegistry registry) {
+        registry.add("tenant.pool.max-total-connections",
+                () -> Integer.getInteger("loadtest.max-total-connections", 1_000));
+        registry.add("tenant.provisioning.workers",
+                () -> Integer.getInteger("loadtest.provision-concurrency", 8));
+    }
+
+    @Test
+    void provisionTenantsAndDriveMixedTraffic() throws Exception {
+        long provisionStarted = System.nanoTime();
+        List<String> failedProvisions = provisionTenants();
+        long provisionMillis = (System.nanoTime() - provisionStarted) / 1_000_000;
+        assertThat(failedProvisions).isEmpty();
+
+        seedStudents();
+        Map<String, Long> tenantIds = tenantRegistry.findAll().stream()
+                .filter(tenant -> tenant.getName().startsWith("load_school_"))
+                .collect(Collectors.toMap(TenantConfig::getName, TenantConfig::getId));
+        assertThat(tenantIds).hasSize(TENANTS);
+
+        Run run = drive(new ArrayList<>(tenantIds.values()));
+        report(provisionMillis, run);
+
+        assertThat(run.unexpectedFailures).as("requests failing for reasons other than load shedding").hasValue(0);
+    }
+
+    private List<String> provisionTenants() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        String tenants = IntStream.range(0, TENANTS)
+                .mapToObj(i -> "{\"name\":\"load_school_" + i + "\",\"url\":\"" + tenantUrl(i)
+                        + "\",\"username\":\"sa\",\"password\":\"\",\"driverClass\":\"org.h2.Driver\"}")
+                .collect(Collectors.joining(",", "[", "]"));
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/provisioning/jobs"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(tenants))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(202);
+        Matcher batch = BATCH_ID.matcher(response.body());
+        assertThat(batch.find()).isTrue();
+
+        // Jobs run in the background; wait until none is PENDING or RUNNING
+        // A stuck job must fail the run, not hang it
+        long deadline = System.currentTimeMillis() + PROVISIONING_TIMEOUT.toMillis();
+        Map<String, Object> progress;
+        do {
+            assertThat(System.currentTimeMillis())
+                    .as("provisioning batch still unfinished after %s", PROVISIONING_TIMEOUT)
+                    .isLessThan(deadline);
+            Thread.sleep(200);
+            progress = provisioningService.getBatchProgress(batch.group(1));
+        } while ((long) progress.get("pending") + (long) progress.get("running") > 0);
+
+        List<String> failed = new ArrayList<>();
+        for (Object job : (List<?>) progress.get("jobs")) {
+            Map<?, ?> summary = (Map<?, ?>) job;
+            if (summary.get("state") != MigrationState.DONE) {
+                failed.add(summary.get("tenant") + " -> " + summary.get("error"));
+            }
+        }
+        return failed;
+    }
+
+    private void seedStudents() throws Exception {
+        for (int i = 0; i < TENANTS; i++) {
+            try (Connection connection = DriverManager.getConnection(tenantUrl(i), "sa", "");
+                 PreparedStatement insert = connection.prepareStatement("INSERT INTO students (name, email) VALUES (?, ?)")) {
+                for (int s = 1; s <= STUDENTS_PER_TENANT; s++) {
+                    insert.setString(1, "Student " + s);
+                    insert.setString(2, "student" + s + "@school" + i + ".test");
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    private Run drive(List<Long> tenantIds) throws Exception {
+        Operation[] mix = parseMix();
+        String attendanceForm = form(IntStream.rangeClosed(1, STUDENTS_PER_TENANT).boxed()
+                .collect(Collectors.toMap(id -> "status_" + id, id -> STATUSES[id % STATUSES.length])));
+
+        Run run = new Run();
+        AtomicInteger remaining = new AtomicInteger(REQUESTS);
+        Thread sampler = Thread.ofVirtual().start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                run.peakHeapBytes.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                run.peakOpenConnections.accumulateAndGet(openConnections(), Math::max);
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        long started = System.nanoTime();
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int u = 0; u < USERS; u++) {
+                users.submit(() -> virtualUser(tenantIds, mix, attendanceForm, remaining, run));
+            }
+        }
+        run.elapsedNanos = System.nanoTime() - started;
+        sampler.interrupt();
+        return run;
+    }
+
+    // One browser session: picks a school, then works in it until the mix says to switch
+    private Void virtualUser(List<Long> tenantIds, Operation[] mix, String attendanceForm,
+                             AtomicInteger remaining, Run run) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        boolean selected = false;
+        while (remaining.getAndDecrement() > 0) {
+            Operation operation = selected ? mix[random.nextInt(mix.length)] : Operation.SELECT;
+            long started = System.nanoTime();
+            HttpResponse<String> response = switch (operation) {
+                case SELECT -> post(client, "/select-tenant",
+                        "tenantId=" + tenantIds.get(random.nextInt(tenantIds.size())));
+                case WORKSPACE -> get(client, "/workspace");
+                case ATTENDANCE -> post(client, "/submit-attendance", attendanceForm);
+            };
+            run.record(operation, System.nanoTime() - started, response.statusCode());
+            if (operation == Operation.SELECT) {
+                selected = response.statusCode() < 400;
+            }
+        }
+        return null;
+    }
+
+    private long openConnections() {
+        return Math.round(meterRegistry.find("tenant.pool.connections").tag("state", "active").gauges().stream()
+                .mapToDouble(Gauge::value).sum()
+                + meterRegistry.find("tenant.pool.connections").tag("state", "idle").gauges().stream()
+                .mapToDouble(Gauge::value).sum());
+    }
+
+    private void report(long provisionMillis, Run run) {
+        double seconds = run.elapsedNanos / 1e9;
+        StringBuilder out = new StringBuilder("\n===== Multi-tenant load report =====\n");
+        out.append(String.format("Tenants: %d (MySQL mode %d, PostgreSQL mode %d), provisioned in %d ms%n",
+                TENANTS, (TENANTS + 1) / 2, TENANTS / 2, provisionMillis));
+        out.append(String.format("Users: %d, requests: %d, mix: %s%n", USERS, run.total(), MIX));
+        out.append(String.format("Throughput: %.1f req/s over %.1f s%n", run.total() / seconds, seconds));
+        out.append(String.format("%-11s %8s %10s %10s %10s %8s%n", "operation", "count", "p50 ms", "p99 ms", "max ms", "errors"));
+        for (Operation operation : Operation.values()) {
+            long[] latencies = run.latencies(operation);
+            out.append(String.format("%-11s %8d %10.2f %10.2f %10.2f %8d%n", operation, latencies.length,
+                    percentile(latencies, 50), percentile(latencies, 99),
+                    latencies.length > 0 ? latencies[latencies.length - 1] / 1e6 : 0.0,
+                    run.errors.get(operation).get()));
+        }
+        out.append("Status codes: ").append(run.statusCodes).append('\n');
+        out.append(String.format("Open tenant connections: %d now, %d peak; pools: %s%n",
+                openConnections(), run.peakOpenConnections.get(), tenantDataSourceManager.getPoolStatistics()));
+        out.append(String.format("Heap: %d MB used now, %d MB peak, %d MB max%n",
+                memory.getHeapMemoryUsage().getUsed() >> 20, run.peakHeapBytes.get() >> 20,
+                memory.getHeapMemoryUsage().getMax() >> 20));
+        System.out.println(out);
+    }
+
+    private Operation[] parseMix() {
+        List<Operation> weighted = new ArrayList<>();
+        for (String entry : MIX.split(",")) {
+            String[] parts = entry.trim().split(":");
+            Operation operation = Operation.valueOf(parts[0].trim().toUpperCase());
+            for (int i = 0; i < Integer.parseInt(parts[1].trim()); i++) {
+                weighted.add(operation);
+            }
+        }
+        return weighted.toArray(Operation[]::new);
+    }
+
+    private static String tenantUrl(int index) {
+        String mode = index % 2 == 0
+                ? "MODE=MySQL;DATABASE_TO_LOWER=TRUE"
+                : "MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH";
+        return "jdbc:h2:mem:load_school_" + index + ";" + mode + ";DB_CLOSE_DELAY=-1";
+    }
+
+    private HttpResponse<String> get(HttpClient client, String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(HttpClient client, String path, String form) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString(form))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String form(Map<String, String> fields) {
+        return fields.entrySet().stream()
+                .map(field -> URLEncoder.encode(field.getKey(), StandardCharsets.UTF_8) + "="
+                        + URLEncoder.encode(field.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static final class Run {
+        private final Map<Operation, List<Long>> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+        private final Map<Integer, AtomicLong> statusCodes = new ConcurrentHashMap<>();
+        private final AtomicLong unexpectedFailures = new AtomicLong();
+        private final AtomicLong peakHeapBytes = new AtomicLong();
+        private final AtomicLong peakOpenConnections = new AtomicLong();
+        private long elapsedNanos;
+
+        private Run() {
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, Collections.synchronizedList(new ArrayList<>()));
+                errors.put(operation, new AtomicLong());
+            }
+        }
+
+        private void record(Operation operation, long nanos, int status) {
+            latencies.get(operation).add(nanos);
+            statusCodes.computeIfAbsent(status, code -> new AtomicLong()).incrementAndGet();
+            if (status >= 400) {
+                errors.get(operation).incrementAndGet();
+                // 429/503 are the bulkhead shedding load, which is expected under pressure
+                if (status != 429 && status != 503) {
+                    unexpectedFailures.incrementAndGet();
+                }
+            }
+        }
+
+        private long[] latencies(Operation operation) {
+            List<Long> recorded = latencies.get(operation);
+            synchronized (recorded) {
+                long[] sorted = recorded.stream().mapToLong(Long::longValue).toArray();
+                Arrays.sort(sorted);
+                return sorted;
+            }
+        }
+
+        private long total() {
+            return latencies.values().stream().mapToLong(List::size).sum();
+        }
+    }
+}
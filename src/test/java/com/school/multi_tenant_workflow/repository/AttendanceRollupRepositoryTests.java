@@ -0,0 +1,96 @@
+package com.school.multi_tenant_workflow.repository;
+
+import com.school.multi_tenant_workflow.dto.DailyAttendanceTotals;
+import com.school.multi_tenant_workflow.model.AttendanceRecord;
+import com.school.multi_tenant_workflow.service.LiquibaseService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class AttendanceRollupRepositoryTests {
+
+    private static final String URL = "jdbc:h2:mem:rollup_tests;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+    private static final LocalDate DAY = LocalDate.of(2026, 9, 1);
+    private static final int TEACHERS = 4;
+    private static final int SUBMISSIONS_PER_TEACHER = 10;
+    private static final int CLASS_SIZE = 4;
+
+    private final HikariDataSource dataSource = newDataSource();
+
+    @AfterEach
+    void dropDatabase() {
+        new JdbcTemplate(dataSource).execute("DROP ALL OBJECTS");
+        dataSource.close();
+    }
+
+    @Test
+    void overlappingSubmissionsForOneDayKeepTheTotalsExact() throws Exception {
+        new LiquibaseService(mock(TenantSchemaVersionRepository.class)).runMigration(URL, "sa", "", "org.h2.Driver");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        AttendanceRollupRepository rollups = new AttendanceRollupRepository(jdbcTemplate);
+        AttendanceBatchWriter writer = new AttendanceBatchWriter(jdbcTemplate, rollups, 1000);
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        // Every teacher marks a different class for the same day at the same moment
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService teachers = Executors.newFixedThreadPool(TEACHERS);
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < TEACHERS; t++) {
+            int teacher = t;
+            done.add(teachers.submit(() -> {
+                start.await();
+                for (int s = 0; s < SUBMISSIONS_PER_TEACHER; s++) {
+                    List<AttendanceRecord> roll = new ArrayList<>();
+                    for (int student = 0; student < CLASS_SIZE; student++) {
+                        long studentId = ((long) teacher * SUBMISSIONS_PER_TEACHER + s) * CLASS_SIZE + student + 1;
+                        roll.add(record(studentId, student == 0 ? "Absent" : "Present"));
+                    }
+                    transaction.executeWithoutResult(status -> writer.upsertAll(roll));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : done) {
+            future.get();
+        }
+        teachers.shutdown();
+
+        int classes = TEACHERS * SUBMISSIONS_PER_TEACHER;
+        assertThat(rollups.dailyTotals(DAY, DAY)).containsExactly(
+                new DailyAttendanceTotals(DAY, (long) classes * (CLASS_SIZE - 1), classes, 0));
+        assertThat(rollups.summarizeByStudent(YearMonth.from(DAY), YearMonth.from(DAY))).hasSize(classes * CLASS_SIZE);
+    }
+
+    private static HikariDataSource newDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(URL);
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setMaximumPoolSize(TEACHERS + 1);
+        return dataSource;
+    }
+
+    private static AttendanceRecord record(long studentId, String status) {
+        AttendanceRecord record = new AttendanceRecord();
+        record.setStudentId(studentId);
+        record.setStatus(status);
+        record.setDate(DAY);
+        return record;
+    }
+}
@@ -0,0 +1,235 @@
+package com.school.multi_tenant_workflow.service;
+
+import com.school.multi_tenant_workflow.config.TenantContext;
+import com.school.multi_tenant_workflow.config.TenantDataSourceManager;
+import com.school.multi_tenant_workflow.model.AttendanceRecord;
+import com.school.multi_tenant_workflow.repository.AttendanceBatchWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AttendanceJournalTests {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 9, 1);
+    private static final int APPENDERS = 8;
+    private static final int APPENDS_PER_THREAD = 500;
+
+    @TempDir
+    Path directory;
+
+    private final AttendanceBatchWriter batchWriter = mock(AttendanceBatchWriter.class);
+    private final TenantDataSourceManager manager = mock(TenantDataSourceManager.class);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replaysUnflushedSubmissionsAfterACrashExactlyOnce() throws Exception {
+        when(manager.getRegisteredTenantNames()).thenReturn(List.of("school"));
+
+        // Acknowledged but never flushed: the process dies before the flusher runs
+        AttendanceJournal crashed = newJournal(new SimpleMeterRegistry());
+        assertThat(crashed.append("school", List.of(record(1L, "Absent"), record(2L, "Present")))).isTrue();
+        assertThat(crashed.append("school", List.of(record(1L, "Present")))).isTrue();
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AttendanceJournal restarted = newJournal(registry);
+        restarted.recover();
+        assertThat(registry.get("attendance.journal.backlog").tag("tenant", "school").gauge().value()).isEqualTo(2);
+
+        flush(restarted);
+        ArgumentCaptor<List<AttendanceRecord>> flushed = ArgumentCaptor.forClass(List.class);
+        verify(batchWriter).upsertAll(flushed.capture());
+        // Both submissions in one batch, in submission order, so the correction wins
+        assertThat(flushed.getValue()).extracting(AttendanceRecord::getStudentId, AttendanceRecord::getStatus)
+                .containsExactly(
+                        tuple(1L, "Absent"),
+                        tuple(2L, "Present"),
+                        tuple(1L, "Present"));
+        assertThat(registry.get("attendance.journal.backlog").tag("tenant", "school").gauge().value()).isZero();
+
+        // The drained journal was rewound; a shorter record over the old bytes must not resurrect them
+        assertThat(restarted.append("school", List.of(record(3L, "OD")))).isTrue();
+        AttendanceJournal again = newJournal(new SimpleMeterRegistry());
+        again.recover();
+        flush(again);
+        verify(batchWriter).upsertAll(List.of(record(3L, "OD")));
+    }
+
+    @Test
+    void keepsTheBacklogForTenantsThatAreNotRegisteredYet() throws Exception {
+        when(manager.getRegisteredTenantNames()).thenReturn(List.of());
+        AttendanceJournal journal = newJournal(new SimpleMeterRegistry());
+        journal.recover();
+        assertThat(journal.append("school", List.of(record(1L, "Present")))).isTrue();
+
+        flush(journal);
+        verify(batchWriter, never()).upsertAll(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void appendsRacingARewindAreReplayedAfterACrash() throws Exception {
+        when(manager.getRegisteredTenantNames()).thenReturn(List.of("school"));
+        Set<Long> written = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> {
+            ((List<AttendanceRecord>) invocation.getArgument(0)).forEach(r -> written.add(r.getStudentId()));
+            return null;
+        }).when(batchWriter).upsertAll(anyList());
+
+        // Appenders race a flusher that drains and rewinds the journal as fast as it can
+        AttendanceJournal crashed = newJournal(new SimpleMeterRegistry());
+        AtomicLong nextStudent = new AtomicLong();
+        ExecutorService threads = Executors.newFixedThreadPool(APPENDERS + 1);
+        List<Future<?>> appenders = new ArrayList<>();
+        for (int t = 0; t < APPENDERS; t++) {
+            appenders.add(threads.submit(() -> {
+                for (int i = 0; i < APPENDS_PER_THREAD; i++) {
+                    long studentId = nextStudent.incrementAndGet();
+                    if (!crashed.append("school", List.of(record(studentId, "Present")))) {
+                        // Journal full: the caller writes synchronously instead
+                        written.add(studentId);
+                    }
+                }
+                return null;
+            }));
+        }
+        // It stops halfway, so what was appended around its last rewind is still pending at the crash
+        Future<?> flusher = threads.submit(() -> {
+            while (nextStudent.get() < APPENDERS * APPENDS_PER_THREAD / 2) {
+                flush(crashed);
+            }
+            return null;
+        });
+        flusher.get();
+        for (Future<?> appender : appenders) {
+            appender.get();
+        }
+        threads.shutdown();
+
+        // Everything the flusher did not reach must come back on restart
+        AttendanceJournal restarted = newJournal(new SimpleMeterRegistry());
+        restarted.recover();
+        flush(restarted);
+        assertThat(written).hasSize(APPENDERS * APPENDS_PER_THREAD);
+    }
+
+    @Test
+    void aRejectedSubmissionIsSetAsideAndDoesNotBlockLaterOnes() throws Exception {
+        when(manager.getRegisteredTenantNames()).thenReturn(List.of("school"));
+        List<AttendanceRecord> persisted = new ArrayList<>();
+        AtomicBoolean databaseDown = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            List<AttendanceRecord> records = invocation.getArgument(0);
+            if (databaseDown.get()) {
+                throw new CannotGetJdbcConnectionException("Connection refused");
+            }
+            // status is VARCHAR(20)
+            if (records.stream().anyMatch(r -> r.getStatus().length() > 20)) {
+                throw new DataIntegrityViolationException("Value too long for column status");
+            }
+            persisted.addAll(records);
+            return records.size();
+        }).when(batchWriter).upsertAll(anyList());
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AttendanceJournal journal = newJournal(registry);
+        assertThat(journal.append("school", List.of(record(1L, "Present".repeat(10))))).isTrue();
+        assertThat(journal.append("school", List.of(record(2L, "Absent")))).isTrue();
+        assertThatThrownBy(() -> journal.append("school", List.of(record(3L, "x".repeat(Short.MAX_VALUE + 1)))))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        // An outage is not the submissions' fault: nothing is set aside and both wait for the next round
+        flush(journal);
+        assertThat(registry.find("attendance.journal.rejected").counter()).isNull();
+        assertThat(registry.get("attendance.journal.backlog").tag("tenant", "school").gauge().value()).isEqualTo(2);
+
+        databaseDown.set(false);
+        flush(journal);
+        assertThat(persisted).extracting(AttendanceRecord::getStudentId).containsExactly(2L);
+        assertThat(registry.get("attendance.journal.rejected").tag("tenant", "school").counter().count()).isEqualTo(1);
+        assertThat(registry.get("attendance.journal.backlog").tag("tenant", "school").gauge().value()).isZero();
+        assertThat(directory.resolve("school.rejected")).isNotEmptyFile();
+
+        // The journal keeps working after the rejection
+        assertThat(journal.append("school", List.of(record(4L, "OD")))).isTrue();
+        flush(journal);
+        assertThat(persisted).extracting(AttendanceRecord::getStudentId).containsExactly(2L, 4L);
+    }
+
+    @Test
+    void aStuckTenantDoesNotHoldUpTheOthersFlush() throws Exception {
+        when(manager.getRegisteredTenantNames()).thenReturn(List.of("slow", "fast"));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch fastFlushed = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            if ("slow".equals(TenantContext.getCurrentTenant())) {
+                release.await();
+            } else {
+                fastFlushed.countDown();
+            }
+            return null;
+        }).when(batchWriter).upsertAll(anyList());
+
+        AttendanceJournal journal = newJournal(new SimpleMeterRegistry());
+        assertThat(journal.append("slow", List.of(record(1L, "Present")))).isTrue();
+        assertThat(journal.append("fast", List.of(record(2L, "Present")))).isTrue();
+        journal.flushAll();
+        // Another round while slow is still stuck starts no second flush for it
+        journal.flushAll();
+
+        assertThat(fastFlushed.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(journal.isFlushing()).isTrue();
+        release.countDown();
+        journal.flushOnShutdown();
+        verify(batchWriter, times(2)).upsertAll(anyList());
+    }
+
+    // Runs one flush round and waits for it, as the scheduler would before the next one
+    private static void flush(AttendanceJournal journal) throws InterruptedException {
+        journal.flushAll();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (journal.isFlushing()) {
+            assertThat(System.currentTimeMillis()).as("flush not finished within 10s").isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private AttendanceJournal newJournal(SimpleMeterRegistry registry) {
+        return new AttendanceJournal(batchWriter, manager, registry, true, directory.toString(), 64 * 1024);
+    }
+
+    private static AttendanceRecord record(Long studentId, String status) {
+        AttendanceRecord record = new AttendanceRecord();
+        record.setStudentId(studentId);
+        record.setStatus(status);
+        record.setDate(DAY);
+        return record;
+    }
+}
@@ -0,0 +1,46 @@
+package com.school.multi_tenant_workflow.service;
+
+import com.school.multi_tenant_workflow.repository.TenantSchemaVersionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class LiquibaseServiceTests {
+
+    private static final String URL = "jdbc:h2:mem:liquibase_schemas;DB_CLOSE_DELAY=-1";
+
+    @Test
+    void migratesEachSchemaWithItsOwnChangelogTable() throws Exception {
+        LiquibaseService service = new LiquibaseService(mock(TenantSchemaVersionRepository.class));
+        service.runMigration(URL, "sa", "", "org.h2.Driver", "school_a");
+        service.runMigration(URL, "sa", "", "org.h2.Driver", "school_b");
+
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "")) {
+            for (String schema : new String[]{"SCHOOL_A", "SCHOOL_B"}) {
+                assertThat(tables(connection, schema)).contains(
+                        "STUDENTS", "ATTENDANCE_RECORDS", "ATTENDANCE_DAILY_TOTALS",
+                        "DATABASECHANGELOG", "DATABASECHANGELOGLOCK");
+            }
+            // Nothing leaks into the database's default schema
+            assertThat(tables(connection, "PUBLIC")).isEmpty();
+        }
+    }
+
+    private static Set<String> tables(Connection connection, String schema) throws SQLException {
+        Set<String> tables = new TreeSet<>();
+        try (ResultSet rs = connection.getMetaData().getTables(null, schema, "%", new String[]{"TABLE"})) {
+            while (rs.next()) {
+                tables.add(rs.getString("TABLE_NAME"));
+            }
+        }
+        return tables;
+    }
+}
@@ -0,0 +1,68 @@
+package com.school.multi_tenant_workflow.service;
+
+import com.school.multi_tenant_workflow.model.MigrationState;
+import com.school.multi_tenant_workflow.model.TenantConfig;
+import com.school.multi_tenant_workflow.model.TenantMigrationStatus;
+import com.school.multi_tenant_workflow.repository.TenantMigrationStatusRepository;
+import com.school.multi_tenant_workflow.repository.TenantRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MigrationOrchestratorTests {
+
+    private final TenantRepository tenantRepository = mock(TenantRepository.class);
+    private final TenantMigrationStatusRepository statusRepository = mock(TenantMigrationStatusRepository.class);
+    private final LiquibaseService liquibaseService = mock(LiquibaseService.class);
+
+    @Test
+    void aMasterDbErrorDoesNotLeakTheServersPermit() {
+        // One migration at a time on the shared server: a leaked permit would hang every later tenant
+        MigrationOrchestrator orchestrator = new MigrationOrchestrator(
+                tenantRepository, statusRepository, liquibaseService, 1, false);
+        when(liquibaseService.getChangelogChecksum()).thenReturn("v2");
+        when(liquibaseService.extractServerKey(anyString())).thenReturn("db-host:5432");
+        when(tenantRepository.findAll()).thenReturn(List.of(tenant(1L), tenant(2L), tenant(3L)));
+        when(statusRepository.save(any(TenantMigrationStatus.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        AtomicBoolean failedOnce = new AtomicBoolean();
+        when(statusRepository.findById(anyLong())).thenAnswer(invocation -> {
+            if (failedOnce.compareAndSet(false, true)) {
+                throw new DataAccessResourceFailureException("Master DB unavailable");
+            }
+            TenantMigrationStatus status = new TenantMigrationStatus();
+            status.setTenantId(invocation.getArgument(0));
+            status.setState(MigrationState.PENDING);
+            return Optional.of(status);
+        });
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), orchestrator::rollout);
+        verify(liquibaseService, times(2)).runMigration(anyString(), eq("sa"), eq(""), eq("org.h2.Driver"), any());
+    }
+
+    private static TenantConfig tenant(Long id) {
+        TenantConfig config = new TenantConfig();
+        config.setId(id);
+        config.setName("school_" + id);
+        config.setUrl("jdbc:h2:mem:school_" + id);
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setDriverClass("org.h2.Driver");
+        return config;
+    }
+}
@@ -0,0 +1,53 @@
+package com.school.multi_tenant_workflow.service;
+
+import com.school.multi_tenant_workflow.config.TenantDataSourceManager;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TenantScatterGatherServiceTests {
+
+    @Test
+    void mergesAnswersAndReportsFailedAndSlowTenants() throws Exception {
+        TenantDataSourceManager manager = mock(TenantDataSourceManager.class);
+        when(manager.getRegisteredTenantNames()).thenReturn(List.of("a", "b", "down", "slow"));
+        Connection connection = mock(Connection.class);
+        when(manager.openConnection(anyString())).thenReturn(connection);
+
+        TenantScatterGatherService service = new TenantScatterGatherService(manager, 16, 1_000);
+
+        TenantScatterGatherService.Result<List<Integer>> result = service.scatterGather(
+                (tenant, con) -> switch (tenant) {
+                    case "down" -> throw new SQLException("Connection refused");
+                    case "slow" -> sleepThenAnswer(30_000, 100);
+                    default -> tenant.equals("a") ? 1 : 2;
+                },
+                new ArrayList<>(),
+                (sum, tenant, answer) -> sum.add(answer));
+
+        assertThat(result.aggregate()).containsExactlyInAnyOrder(1, 2);
+        assertThat(result.tenantsQueried()).isEqualTo(4);
+        assertThat(result.tenantsAnswered()).isEqualTo(2);
+        assertThat(result.failedTenants()).containsOnlyKeys("down");
+        assertThat(result.timedOutTenants()).containsExactly("slow");
+        assertThat(result.isPartial()).isTrue();
+        assertThat(result.elapsedMillis()).isLessThan(30_000);
+    }
+
+    private static int sleepThenAnswer(long millis, int answer) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return answer;
+    }
+}